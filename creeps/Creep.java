@@ -52,6 +52,12 @@ public interface Creep extends Comparable<Creep>, Drawable {
 
   public double getTotalDistanceTravelled();
 
+  /**
+   * The distance along the path from its first point, which is negative before the creep gets to
+   * it, as creeps start off screen.
+   */
+  public double getDistanceAlongPath();
+
   public Shape getBounds();
 
   public boolean isAlive();
@@ -95,7 +101,7 @@ public interface Creep extends Comparable<Creep>, Drawable {
   public class FirstComparator extends AbstractCreepComparator {
     @Override
     public int compare(Creep c1, Creep c2) {
-      return Double.compare(c2.getTotalDistanceTravelled(), c1.getTotalDistanceTravelled());
+      return Double.compare(c2.getDistanceAlongPath(), c1.getDistanceAlongPath());
     }
 
     @Override
@@ -0,0 +1,662 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package creeps;
+
+import creeps.Creep.CreepEffect;
+import creeps.Creep.DamageReport;
+import gui.Drawable;
+import images.CollisionMask;
+import images.SpriteCache;
+import java.awt.AlphaComposite;
+import java.awt.Color;
+import java.awt.Composite;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.List;
+import logic.Formulae;
+import logic.PathTable;
+import towers.DamageNotifier;
+import towers.Tower;
+import util.Circle;
+
+/**
+ * Holds the state of creeps in arrays, one slot per creep, rather than each creep having its own
+ * fields and objects, so lots of creeps take much less memory and are faster to tick. {@link
+ * AbstractCreep} is just a view of its slot in here.
+ *
+ * <p>A creep is added when it is made, and removes itself once it is gone from the game. Removed
+ * creeps are moved to a graveyard store, which is filled in order and shared with the creeps
+ * removed around the same time, so anything that still has one sees it as it was when it was
+ * removed. As in {@link towers.BasicBulletPool}, the last creep is moved into the place of
+ * one that is removed.
+ */
+public class CreepStore {
+
+  private static final int initialCapacity = 64;
+  // The number of removed creeps kept in each graveyard
+  private static final int graveyardCapacity = 256;
+
+  private static final double multiTowerBonusPerTower = 1.1;
+
+  // The amount the image of the creep shrinks by per tick after it has been killed
+  private static final int dieImageWidthShrinkAmount = 4;
+
+  private static final Color[] effectsColours = createEffectsColours();
+  private static final Composite effectsComposite =
+      AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.25F);
+
+  private int size = 0;
+  AbstractCreep[] creeps;
+  private PathTable[] paths;
+  private Frames[] frames;
+  private int[] imageIndex;
+  double[] angle;
+
+  private int[] level;
+  private long[] levelHP;
+  private double[] hpFactor;
+  double[] hp;
+  private double[] speed;
+  // Where each creep is, as the distance along its path from the path's first point
+  double[] distance;
+  private int[] line;
+  double[] x;
+  double[] y;
+  // The radius used for hit tests, which is half the original width, as the width shrinks as the
+  // creep dies
+  int[] radius;
+  int[] width;
+  boolean[] alive;
+  boolean[] finished;
+
+  double[] speedFactor;
+  private int[] speedTicksLeft;
+  private DamageNotifier[] speedNotifier;
+  private double[] damageMultiplier;
+  private int[] damageTicksLeft;
+  private DamageNotifier[] damageNotifier;
+  private int[] poisonTicksLeft;
+  // A bit for each CreepEffect, by its ordinal
+  private byte[] effects;
+
+  // The classes of the towers that have hit each creep, with the most recent last
+  private Class<?>[][] hits;
+  private int[] numHits;
+
+  // Where removed creeps are moved to, a new one is started when it's full
+  private CreepStore graveyard;
+
+  public CreepStore() {
+    this(initialCapacity);
+  }
+
+  private CreepStore(int capacity) {
+    creeps = new AbstractCreep[capacity];
+    paths = new PathTable[capacity];
+    frames = new Frames[capacity];
+    imageIndex = new int[capacity];
+    angle = new double[capacity];
+    level = new int[capacity];
+    levelHP = new long[capacity];
+    hpFactor = new double[capacity];
+    hp = new double[capacity];
+    speed = new double[capacity];
+    distance = new double[capacity];
+    line = new int[capacity];
+    x = new double[capacity];
+    y = new double[capacity];
+    radius = new int[capacity];
+    width = new int[capacity];
+    alive = new boolean[capacity];
+    finished = new boolean[capacity];
+    speedFactor = new double[capacity];
+    speedTicksLeft = new int[capacity];
+    speedNotifier = new DamageNotifier[capacity];
+    damageMultiplier = new double[capacity];
+    damageTicksLeft = new int[capacity];
+    damageNotifier = new DamageNotifier[capacity];
+    poisonTicksLeft = new int[capacity];
+    effects = new byte[capacity];
+    hits = new Class<?>[capacity][];
+    numHits = new int[capacity];
+  }
+
+  /** The number of creeps in the store. */
+  public int size() {
+    return size;
+  }
+
+  /** Removes every creep, each of which is moved to a store of its own. */
+  public void clear() {
+    while (size > 0) {
+      remove(size - 1);
+    }
+  }
+
+  /**
+   * Adds a creep at the start of the path, facing along the first line. It has no images until
+   * {@link #setFrames} is called.
+   *
+   * @return the creep's slot
+   */
+  int add(
+      AbstractCreep c,
+      PathTable path,
+      int currentLevel,
+      long levelHP,
+      double hp,
+      double speed,
+      int width) {
+    if (size == creeps.length) {
+      grow();
+    }
+    int i = size++;
+    creeps[i] = c;
+    paths[i] = path;
+    level[i] = currentLevel;
+    this.levelHP[i] = levelHP;
+    hpFactor[i] = levelHP / hp;
+    this.hp[i] = hp;
+    this.speed[i] = speed;
+    this.width[i] = width;
+    radius[i] = width / 2;
+    // Start fully off screen, then come on screen. One pixel is added to the radius to be sure.
+    distance[i] = -(radius[i] + 1);
+    line[i] = 0;
+    angle[i] = path.getAngle(0);
+    setPosition(i);
+    imageIndex[i] = 0;
+    alive[i] = true;
+    finished[i] = false;
+    speedFactor[i] = 1;
+    speedTicksLeft[i] = 0;
+    damageMultiplier[i] = 1;
+    damageTicksLeft[i] = 0;
+    poisonTicksLeft[i] = 0;
+    effects[i] = 0;
+    numHits[i] = 0;
+    return i;
+  }
+
+  /** Removes the creep, moving it to a store of its own. */
+  void remove(AbstractCreep c) {
+    if (creeps[c.getSlot()] != c) {
+      throw new IllegalArgumentException(c + " is not in this store.");
+    }
+    remove(c.getSlot());
+  }
+
+  void setFrames(int i, Frames f) {
+    frames[i] = f;
+  }
+
+  /** The distance along the path at which the creep is first fully on screen. */
+  double getStartDistance(int i) {
+    return -(radius[i] + 1);
+  }
+
+  /**
+   * Ticks the creep, which removes it if it's gone from the game.
+   *
+   * @return true if the creep has finished or has been killed and has gone from the screen
+   */
+  boolean tick(int i) {
+    boolean gone = false;
+    if (alive[i]) {
+      // Move on to the next image, wrapping at the end
+      imageIndex[i] = (imageIndex[i] + 1) % frames[i].images.length;
+      if (move(i)) {
+        decreaseEffectsTicksLeft(i);
+      } else {
+        finished[i] = true;
+        gone = true;
+      }
+    } else {
+      // If the creep is dead, reduce the size it is drawn at, and when it gets too small, stop
+      // showing it - the creep is gone from the game now
+      width[i] -= dieImageWidthShrinkAmount;
+      gone = width[i] / 2 < 0;
+    }
+    if (gone) {
+      remove(i);
+    }
+    return gone;
+  }
+
+  void draw(int i, Graphics2D g) {
+    // Save this as the processing might change it in another thread, causing strange errors
+    int w = width[i];
+    draw(g, frames[i].images[imageIndex[i]], x[i], y[i], w, effects[i]);
+  }
+
+  /**
+   * Creates a drawable of the creeps, in the order given, as they are now. It has its own copy of
+   * everything it draws, so can be drawn on another thread while the creeps carry on moving.
+   *
+   * @param inOrder creeps in this store, those that aren't are left out
+   */
+  public Drawable createDrawable(List<? extends Creep> inOrder) {
+    int num = 0;
+    final BufferedImage[] images = new BufferedImage[inOrder.size()];
+    final float[] xs = new float[images.length];
+    final float[] ys = new float[images.length];
+    final int[] widths = new int[images.length];
+    final byte[] effectBits = new byte[images.length];
+    for (Creep c : inOrder) {
+      int i = c instanceof AbstractCreep ac ? ac.getSlot(this) : -1;
+      if (i >= 0) {
+        images[num] = frames[i].images[imageIndex[i]];
+        xs[num] = (float) x[i];
+        ys[num] = (float) y[i];
+        widths[num] = width[i];
+        effectBits[num] = effects[i];
+        num++;
+      }
+    }
+    final int numCreeps = num;
+    return new Drawable() {
+      @Override
+      public void draw(Graphics2D g) {
+        for (int i = 0; i < numCreeps; i++) {
+          CreepStore.draw(g, images[i], xs[i], ys[i], widths[i], effectBits[i]);
+        }
+      }
+
+      @Override
+      public ZCoordinate getZ() {
+        return ZCoordinate.Creep;
+      }
+    };
+  }
+
+  private static void draw(
+      Graphics2D g, BufferedImage image, double x, double y, int width, byte effects) {
+    int halfWidth = width / 2;
+    if (halfWidth < 0) { // Creep is dead and so small it's not showing
+      return;
+    }
+    int left = (int) x - halfWidth;
+    int top = (int) y - halfWidth;
+    g.drawImage(image, left, top, width, width, null);
+    if (effects != 0) {
+      drawEffects(g, x, y, halfWidth, effects);
+    }
+  }
+
+  /** Whether the point is on a pixel of the creep, which doesn't check if it's alive. */
+  boolean fastIntersects(int i, double px, double py) {
+    double dx = px - x[i];
+    double dy = py - y[i];
+    // Need to check this first otherwise the image check won't work, as it'll look outside the
+    // bounds of the image
+    if (dx * dx + dy * dy < radius[i] * radius[i]) {
+      // If this is a completely transparent pixel, it's not a hit
+      return frames[i].masks[imageIndex[i]].isSet((int) (dx + radius[i]), (int) (dy + radius[i]));
+    }
+    return false;
+  }
+
+  /**
+   * False if no point on the line can be on a pixel of the creep, which is checked a word of its
+   * mask at a time so it's much quicker than walking along the line.
+   */
+  boolean mayIntersect(int i, Line2D line) {
+    double left = x[i] - radius[i];
+    double top = y[i] - radius[i];
+    return frames[i]
+        .masks[imageIndex[i]]
+        .anySetNear(
+            line.getX1() - left, line.getY1() - top, line.getX2() - left, line.getY2() - top);
+  }
+
+  DamageReport hit(int i, double damage, Class<? extends Tower> towerClass) {
+    if (!alive[i]) {
+      return null;
+    }
+    damage *= calculateMultiTowerBonus(i, towerClass);
+    double adjustedDamage = damage;
+    if (damageTicksLeft[i] > 0) {
+      adjustedDamage *= damageMultiplier[i];
+    }
+    double hpLeft = hp[i];
+    if (hpLeft - adjustedDamage <= 0) {
+      // This hit killed the creep, so the damage dealt is the number of hp the creep had left,
+      // not the raw damage of the hit
+      alive[i] = false;
+      double damageToReport = hpLeft;
+      boolean wasKill = true;
+      if (damageNotifier[i] != null && adjustedDamage > damage && hpLeft > damage) {
+        // Notify the tower that caused the extra damage of the damage it caused
+        // Note that it only caused extra damage if the original shot would not have killed this
+        // creep.
+        damageNotifier[i].notifyOfDamage(hpLeft - damage);
+        damageNotifier[i].notifyOfKills(1);
+
+        damageToReport = damage;
+        // Don't count it as a kill on the damage report
+        wasKill = false;
+      }
+      if (speedNotifier[i] != null) {
+        speedNotifier[i].notifyOfDamage(hpLeft);
+        speedNotifier[i].notifyOfKills(1);
+      }
+      double moneyEarned =
+          Formulae.damageDollars(hpLeft, hpFactor[i], level[i])
+              + Formulae.killBonus(levelHP[i], level[i]);
+      return new DamageReport(damageToReport, moneyEarned, wasKill);
+    } else {
+      hp[i] -= adjustedDamage;
+      if (damageNotifier[i] != null && adjustedDamage > damage) {
+        // Notify the tower that caused the extra damage of the damage it caused
+        damageNotifier[i].notifyOfDamage(adjustedDamage / damageMultiplier[i]);
+      }
+      if (speedNotifier[i] != null) {
+        speedNotifier[i].notifyOfDamage(adjustedDamage);
+      }
+      double moneyEarned = Formulae.damageDollars(adjustedDamage, hpFactor[i], level[i]);
+      // Only report the damage actually from this shot, not the extra
+      return new DamageReport(damage, moneyEarned, false);
+    }
+  }
+
+  void slow(int i, double factor, int numTicks, DamageNotifier dn) {
+    addEffect(i, CreepEffect.SLOW);
+    if (factor < speedFactor[i]) {
+      // New speed is slower, so it is better, even if only for a short
+      // time. Or so I think.
+      speedFactor[i] = factor;
+      speedTicksLeft[i] = numTicks;
+      speedNotifier[i] = dn;
+    } else if (Math.abs(factor - speedFactor[i]) < 0.01) {
+      // The new slow speed factor is basically the same as the current
+      // speed, so if it is for longer, lengthen it
+      if (numTicks > speedTicksLeft[i]) {
+        speedFactor[i] = factor;
+        speedTicksLeft[i] = numTicks;
+        speedNotifier[i] = dn;
+      }
+    }
+    // Otherwise ignore it as it would increase the creep's speed
+  }
+
+  void setDamageMultiplier(int i, DamageNotifier dn, double multiplier, int numTicks) {
+    addEffect(i, CreepEffect.WEAK);
+    if (multiplier > damageMultiplier[i]) { // If this would weaken the creep by more
+      damageMultiplier[i] = multiplier;
+      damageTicksLeft[i] = numTicks;
+      damageNotifier[i] = dn;
+    } else if (Math.abs(multiplier - damageMultiplier[i]) < 0.01) {
+      // Otherwise only apply it if it's approx. the same and would apply for longer
+      if (numTicks > damageTicksLeft[i]) {
+        damageMultiplier[i] = multiplier;
+        damageTicksLeft[i] = numTicks;
+        damageNotifier[i] = dn;
+      }
+    }
+  }
+
+  void poison(int i, int numTicks) {
+    addEffect(i, CreepEffect.POISON);
+    if (numTicks > poisonTicksLeft[i]) {
+      poisonTicksLeft[i] = numTicks;
+    }
+  }
+
+  double getSpeed(int i) {
+    return speedFactor[i] * speed[i];
+  }
+
+  /**
+   * Moves the creep.
+   *
+   * @return true if it is still on screen, false if it has finished and has gone off screen
+   */
+  private boolean move(int i) {
+    PathTable path = paths[i];
+    distance[i] += speed[i] * speedFactor[i];
+    if (distance[i] >= path.getLength() + radius[i] + 1) {
+      return false;
+    }
+    int newLine = path.lineAt(distance[i], line[i]);
+    if (newLine != line[i]) {
+      line[i] = newLine;
+      angle[i] = path.getAngle(newLine);
+      frames[i] = creeps[i].getFrames(angle[i]);
+    }
+    setPosition(i);
+    return true;
+  }
+
+  private void setPosition(int i) {
+    x[i] = paths[i].getX(distance[i], line[i]);
+    y[i] = paths[i].getY(distance[i], line[i]);
+  }
+
+  private void addEffect(int i, CreepEffect e) {
+    effects[i] |= (byte) (1 << e.ordinal());
+  }
+
+  private void removeEffect(int i, CreepEffect e) {
+    effects[i] &= (byte) ~(1 << e.ordinal());
+  }
+
+  private void decreaseEffectsTicksLeft(int i) {
+    if (speedTicksLeft[i] > 0) {
+      speedTicksLeft[i]--;
+      if (speedTicksLeft[i] <= 0) {
+        removeEffect(i, CreepEffect.SLOW);
+        speedFactor[i] = 1;
+        speedNotifier[i] = null;
+      }
+    }
+    if (damageTicksLeft[i] > 0) {
+      damageTicksLeft[i]--;
+      if (damageTicksLeft[i] <= 0) {
+        removeEffect(i, CreepEffect.WEAK);
+        damageMultiplier[i] = 1;
+        damageNotifier[i] = null;
+      }
+    }
+    if (poisonTicksLeft[i] > 0) {
+      poisonTicksLeft[i]--;
+      if (poisonTicksLeft[i] <= 0) {
+        removeEffect(i, CreepEffect.POISON);
+      }
+    }
+  }
+
+  private double calculateMultiTowerBonus(int i, Class<? extends Tower> towerClass) {
+    if (towerClass == null) {
+      return 1;
+    }
+    Class<?>[] h = hits[i];
+    int n = numHits[i];
+    int index = n - 1;
+    while (index >= 0 && h[index] != towerClass) {
+      index--;
+    }
+    int numOtherTowers;
+    if (index >= 0) {
+      // If the tower has hit before, the number of other towers is the number of hits since then
+      numOtherTowers = n - index - 1;
+      // Remove this hit so that the list doesn't keep on growing. A new hit will be added at
+      // the end.
+      System.arraycopy(h, index + 1, h, index, numOtherTowers);
+      n--;
+    } else {
+      // Otherwise it's the number of towers that have hit it
+      numOtherTowers = n;
+    }
+    if (h == null) {
+      h = hits[i] = new Class<?>[4];
+    } else if (n == h.length) {
+      h = hits[i] = Arrays.copyOf(h, n * 2);
+    }
+    h[n] = towerClass;
+    numHits[i] = n + 1;
+    double mult = 1;
+    while (numOtherTowers > 0) {
+      mult *= multiTowerBonusPerTower;
+      numOtherTowers--;
+    }
+    return mult;
+  }
+
+  private static void drawEffects(Graphics2D g, double x, double y, int radius, byte effects) {
+    g = (Graphics2D) g.create();
+
+    g.setComposite(effectsComposite);
+
+    // If the creep is dying, only have the circle as big as its current size
+    // Increase the radius to ensure it fully covers the creep picture
+    Circle fillArea = new Circle(x, y, radius + 1);
+
+    for (CreepEffect e : CreepEffect.values()) {
+      if ((effects & (1 << e.ordinal())) != 0) {
+        g.setColor(effectsColours[e.ordinal()]);
+        g.fill(fillArea);
+      }
+    }
+
+    g.dispose();
+  }
+
+  private void remove(int i) {
+    AbstractCreep c = creeps[i];
+    if (graveyard == null || graveyard.size == graveyard.creeps.length) {
+      // The full one is kept by the creeps in it for as long as any of them are
+      graveyard = new CreepStore(graveyardCapacity);
+    }
+    int grave = graveyard.size++;
+    graveyard.copy(this, i, grave);
+    c.moveTo(graveyard, grave);
+    int last = size - 1;
+    if (i != last) {
+      copy(this, last, i);
+      creeps[i].moveTo(this, i);
+    }
+    creeps[last] = null;
+    paths[last] = null;
+    frames[last] = null;
+    speedNotifier[last] = null;
+    damageNotifier[last] = null;
+    hits[last] = null;
+    size--;
+  }
+
+  /** Copies the creep in slot from of store into slot to of this. */
+  private void copy(CreepStore store, int from, int to) {
+    creeps[to] = store.creeps[from];
+    paths[to] = store.paths[from];
+    frames[to] = store.frames[from];
+    imageIndex[to] = store.imageIndex[from];
+    angle[to] = store.angle[from];
+    level[to] = store.level[from];
+    levelHP[to] = store.levelHP[from];
+    hpFactor[to] = store.hpFactor[from];
+    hp[to] = store.hp[from];
+    speed[to] = store.speed[from];
+    distance[to] = store.distance[from];
+    line[to] = store.line[from];
+    x[to] = store.x[from];
+    y[to] = store.y[from];
+    radius[to] = store.radius[from];
+    width[to] = store.width[from];
+    alive[to] = store.alive[from];
+    finished[to] = store.finished[from];
+    speedFactor[to] = store.speedFactor[from];
+    speedTicksLeft[to] = store.speedTicksLeft[from];
+    speedNotifier[to] = store.speedNotifier[from];
+    damageMultiplier[to] = store.damageMultiplier[from];
+    damageTicksLeft[to] = store.damageTicksLeft[from];
+    damageNotifier[to] = store.damageNotifier[from];
+    poisonTicksLeft[to] = store.poisonTicksLeft[from];
+    effects[to] = store.effects[from];
+    hits[to] = store.hits[from];
+    numHits[to] = store.numHits[from];
+  }
+
+  private void grow() {
+    int capacity = creeps.length * 2;
+    creeps = Arrays.copyOf(creeps, capacity);
+    paths = Arrays.copyOf(paths, capacity);
+    frames = Arrays.copyOf(frames, capacity);
+    imageIndex = Arrays.copyOf(imageIndex, capacity);
+    angle = Arrays.copyOf(angle, capacity);
+    level = Arrays.copyOf(level, capacity);
+    levelHP = Arrays.copyOf(levelHP, capacity);
+    hpFactor = Arrays.copyOf(hpFactor, capacity);
+    hp = Arrays.copyOf(hp, capacity);
+    speed = Arrays.copyOf(speed, capacity);
+    distance = Arrays.copyOf(distance, capacity);
+    line = Arrays.copyOf(line, capacity);
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    radius = Arrays.copyOf(radius, capacity);
+    width = Arrays.copyOf(width, capacity);
+    alive = Arrays.copyOf(alive, capacity);
+    finished = Arrays.copyOf(finished, capacity);
+    speedFactor = Arrays.copyOf(speedFactor, capacity);
+    speedTicksLeft = Arrays.copyOf(speedTicksLeft, capacity);
+    speedNotifier = Arrays.copyOf(speedNotifier, capacity);
+    damageMultiplier = Arrays.copyOf(damageMultiplier, capacity);
+    damageTicksLeft = Arrays.copyOf(damageTicksLeft, capacity);
+    damageNotifier = Arrays.copyOf(damageNotifier, capacity);
+    poisonTicksLeft = Arrays.copyOf(poisonTicksLeft, capacity);
+    effects = Arrays.copyOf(effects, capacity);
+    hits = Arrays.copyOf(hits, capacity);
+    numHits = Arrays.copyOf(numHits, capacity);
+  }
+
+  private static Color[] createEffectsColours() {
+    Color[] colours = new Color[CreepEffect.values().length];
+    colours[CreepEffect.SLOW.ordinal()] = Color.BLUE;
+    colours[CreepEffect.WEAK.ordinal()] = Color.MAGENTA;
+    colours[CreepEffect.POISON.ordinal()] = Color.GREEN;
+    return colours;
+  }
+
+  /**
+   * The images of a creep facing one way, with their masks for hit tests. These are shared by
+   * every creep of the same type facing the same way.
+   */
+  static final class Frames {
+    final BufferedImage[] images;
+    final CollisionMask[] masks;
+
+    Frames(BufferedImage[] images) {
+      this.images = images;
+      masks = new CollisionMask[images.length];
+      for (int i = 0; i < images.length; i++) {
+        masks[i] = CollisionMask.forImage(images[i]);
+      }
+    }
+
+    long getBytes() {
+      long bytes = 0;
+      for (int i = 0; i < images.length; i++) {
+        bytes += SpriteCache.sizeOf(images[i]) + masks[i].getBytes();
+      }
+      return bytes;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package creeps;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import gui.Drawable;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import logic.PathTable;
+import org.junit.Test;
+
+public class CreepStoreTest {
+
+  private final PathTable path =
+      new PathTable(Arrays.asList(new Point(0, 100), new Point(1000, 100)));
+
+  @Test
+  public void testRemovedCreepKeepsItsState() {
+    CreepStore store = new CreepStore();
+    Random rand = new Random(1);
+    Creep first = Pacman.create(1, 10, path, store, rand);
+    Creep killed = Pacman.create(1, 10, path, store, rand);
+    Creep last = Pacman.create(1, 10, path, store, rand);
+    assertEquals(3, store.size());
+
+    assertFalse(first.tick());
+    assertFalse(killed.tick());
+    assertFalse(last.tick());
+    assertTrue(killed.hit(1000, null).wasKill());
+    double killedDistance = killed.getDistanceAlongPath();
+    // The killed creep shrinks, then is gone and is removed from the store
+    while (!killed.tick()) {}
+    assertEquals(2, store.size());
+
+    // The last creep has been moved to the killed creep's slot, and they're all as they were
+    double firstDistance = first.getDistanceAlongPath();
+    double lastDistance = last.getDistanceAlongPath();
+    assertFalse(first.tick());
+    assertFalse(last.tick());
+    assertEquals(firstDistance + first.getSpeed(), first.getDistanceAlongPath(), 1e-9);
+    assertEquals(lastDistance + last.getSpeed(), last.getDistanceAlongPath(), 1e-9);
+    assertTrue(first.isAlive());
+    assertTrue(last.isAlive());
+    assertFalse(killed.isAlive());
+    assertEquals(killedDistance, killed.getDistanceAlongPath(), 0);
+    assertNull(killed.hit(1000, null));
+
+    store.clear();
+    assertEquals(0, store.size());
+    assertEquals(lastDistance + last.getSpeed(), last.getDistanceAlongPath(), 1e-9);
+  }
+
+  @Test
+  public void testDrawableIsACopy() {
+    CreepStore store = new CreepStore();
+    Random rand = new Random(2);
+    List<Creep> creeps = new ArrayList<Creep>();
+    for (int i = 0; i < 3; i++) {
+      creeps.add(Pacman.create(1, 10, path, store, rand));
+      for (int j = 0; j < 20; j++) {
+        for (Creep c : creeps) {
+          c.tick();
+        }
+      }
+    }
+    creeps.get(1).hit(1000, null);
+    creeps.get(1).tick();
+    Drawable drawable = store.createDrawable(creeps);
+    BufferedImage expected = draw(creeps);
+    assertTrue(Arrays.equals(pixels(expected), pixels(draw(Arrays.asList(drawable)))));
+
+    // Moving the creeps doesn't change what's drawn
+    for (Creep c : creeps) {
+      c.tick();
+    }
+    assertFalse(Arrays.equals(pixels(expected), pixels(draw(creeps))));
+    assertTrue(Arrays.equals(pixels(expected), pixels(draw(Arrays.asList(drawable)))));
+  }
+
+  private BufferedImage draw(List<? extends Drawable> drawables) {
+    BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_ARGB);
+    Graphics2D g = image.createGraphics();
+    for (Drawable d : drawables) {
+      d.draw(g);
+    }
+    g.dispose();
+    return image;
+  }
+
+  private int[] pixels(BufferedImage image) {
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+}
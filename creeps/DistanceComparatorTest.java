@@ -9,6 +9,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 import logic.Constants;
+import logic.PathTable;
 import org.junit.Test;
 
 public class DistanceComparatorTest {
@@ -29,8 +30,11 @@ public class DistanceComparatorTest {
     int numCreeps = 10000;
     List<Creep> creeps = new ArrayList<>(numCreeps);
 
+    CreepStore store = new CreepStore();
     for (int i = 0; i < numCreeps; i++) {
-      creeps.add(new Pacman(1, 1000, Arrays.asList(getMapPoint(), getMapPoint())));
+      creeps.add(
+          Pacman.create(
+              1, 1000, new PathTable(Arrays.asList(getMapPoint(), getMapPoint())), store, rand));
     }
 
     for (int i = 0; i < 100; i++) {
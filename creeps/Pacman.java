@@ -20,11 +20,12 @@
 package creeps;
 
 import images.ImageHelper;
-import java.awt.Point;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
+import logic.PathTable;
 
 public class Pacman extends AbstractCreep {
 
@@ -35,8 +36,30 @@ public class Pacman extends AbstractCreep {
   private static final int numImages = 8;
   private static final List<BufferedImage> images = Collections.unmodifiableList(makeImages());
 
-  public Pacman(int currentLevel, long hp, List<Point> path) {
-    super(images, currentLevel, hp, path);
+  private Pacman() {
+    super(images);
+  }
+
+  /** Makes a Pacman at the start of the path, with its state in store. */
+  public static Pacman create(
+      int currentLevel, long hp, PathTable path, CreepStore store, Random rand) {
+    Pacman p = new Pacman();
+    p.addTo(store, currentLevel, hp, path, rand);
+    return p;
+  }
+
+  /**
+   * Rotates the images to the angle of each line of the path, so it isn't done while creeps are
+   * going along it. Stops early if the thread is interrupted, leaving the rest to be done when
+   * they're needed.
+   */
+  public static void prerender(PathTable path) {
+    for (int line = 0; line < path.getNumLines(); line++) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      getFrames(Pacman.class, images, path.getAngle(line));
+    }
   }
 
   private static ArrayList<BufferedImage> makeImages() {
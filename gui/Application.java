@@ -19,13 +19,19 @@
 
 package gui;
 
+import images.SpriteCache;
 import jargs.CmdLineParser;
 import jargs.CmdLineParser.Option;
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.io.File;
+import java.io.IOException;
 import javax.swing.JFrame;
 import logic.MyExecutor;
 import logic.Options;
+import logic.ReplayPlayer;
+import logic.Scene;
+import logic.Simulation;
 
 public class Application {
 
@@ -34,7 +40,12 @@ public class Application {
 
     Option debugTimesOption = parser.addBooleanOption('d', "debugTimes");
     Option debugPathOption = parser.addBooleanOption("debugPath");
+    Option activeRenderingOption = parser.addBooleanOption("activeRendering");
     Option threadsOption = parser.addIntegerOption('t', "threads");
+    Option spriteCacheOption = parser.addIntegerOption("spriteCacheMB");
+    Option seedOption = parser.addLongOption('s', "seed");
+    Option recordOption = parser.addStringOption("record");
+    Option replayOption = parser.addStringOption("replay");
 
     try {
       parser.parse(args);
@@ -45,21 +56,73 @@ public class Application {
 
     boolean debugTimes = (Boolean) parser.getOptionValue(debugTimesOption, false);
     boolean debugPath = (Boolean) parser.getOptionValue(debugPathOption, false);
+    boolean activeRendering = (Boolean) parser.getOptionValue(activeRenderingOption, false);
     int numThreads = (Integer) parser.getOptionValue(threadsOption, 0);
+    Integer spriteCacheMB = (Integer) parser.getOptionValue(spriteCacheOption);
+    Long seed = (Long) parser.getOptionValue(seedOption);
+    String recordFile = (String) parser.getOptionValue(recordOption);
+    String replayFile = (String) parser.getOptionValue(replayOption);
 
     // Let a negative or zero value imply to use the default
     if (numThreads > 0) {
       MyExecutor.setNumThreads(numThreads);
     }
 
+    if (spriteCacheMB != null) {
+      SpriteCache.getShared().setBudget(spriteCacheMB * 1024L * 1024);
+    }
+
+    if (replayFile != null) {
+      replay(new File(replayFile), debugTimes);
+      return;
+    }
+
     JFrame frame = new JFrame("Pac Defence");
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     frame.setResizable(false);
-    new PacDefence(frame, new Options(debugTimes, debugPath));
+    new PacDefence(
+        frame,
+        new Options(
+            debugTimes,
+            debugPath,
+            seed,
+            recordFile == null ? null : new File(recordFile),
+            activeRendering));
     frame.pack();
     Dimension d = Toolkit.getDefaultToolkit().getScreenSize();
     // Centres the frame on screen
     frame.setLocation((d.width - frame.getWidth()) / 2, (d.height - frame.getHeight()) / 2);
     frame.setVisible(true);
   }
+
+  /** Plays a recorded game as fast as possible without showing it, and prints how it went. */
+  private static void replay(File file, boolean debugTimes) {
+    MyExecutor.initialiseExecutor();
+    try {
+      ReplayPlayer player = new ReplayPlayer(file);
+      Scene.DebugTimes totalTimes = null;
+      if (debugTimes) {
+        totalTimes = player.getSimulation().getScene().new DebugTimes();
+      }
+      long beginTime = System.nanoTime();
+      Simulation sim = player.play(totalTimes);
+      long elapsedTime = (System.nanoTime() - beginTime) / 1000000;
+      System.out.println(
+          "Played " + sim.getTicks() + " ticks in " + elapsedTime + "ms, reaching level "
+              + sim.getLevel() + " with " + sim.getLives() + " lives and " + sim.getMoney()
+              + " money.");
+      if (totalTimes != null) {
+        System.out.println(
+            "Creeps: " + totalTimes.processCreepsTime / 1000000 + "ms, bullets: "
+                + totalTimes.processBulletsTime / 1000000 + "ms, towers: "
+                + totalTimes.processTowersTime / 1000000 + "ms");
+        System.out.println("Sprite cache: " + SpriteCache.getShared());
+      }
+    } catch (IOException e) {
+      System.err.println(e.getMessage());
+      System.exit(1);
+    } finally {
+      MyExecutor.terminateExecutor();
+    }
+  }
 }
@@ -60,53 +60,17 @@ import javax.swing.event.ChangeListener;
 import logic.Constants;
 import logic.Game.ControlEventProcessor;
 import towers.Buildable;
+import towers.BuildableTypes;
 import towers.ExperienceReport;
-import towers.Ghost;
 import towers.Tower;
 import towers.Tower.Attribute;
-import towers.impl.AidTower;
-import towers.impl.BeamTower;
-import towers.impl.BomberTower;
-import towers.impl.ChargeTower;
-import towers.impl.CircleTower;
-import towers.impl.FreezeTower;
-import towers.impl.HomingTower;
-import towers.impl.JumperTower;
-import towers.impl.LaserTower;
-import towers.impl.MultiShotTower;
-import towers.impl.OmnidirectionalTower;
-import towers.impl.PoisonTower;
-import towers.impl.ScatterTower;
-import towers.impl.SlowLengthTower;
-import towers.impl.WaveTower;
-import towers.impl.WeakenTower;
-import towers.impl.ZapperTower;
 import util.Helper;
 
 @SuppressWarnings("serial")
 public class ControlPanel extends JPanel {
 
   // The tower implementations to use for the game, there should be exactly 18 here
-  private static final Buildable[] buildables = {
-    new BomberTower(new Point()),
-    new SlowLengthTower(new Point()),
-    new FreezeTower(new Point()),
-    new JumperTower(new Point()),
-    new CircleTower(new Point()),
-    new ScatterTower(new Point()),
-    new MultiShotTower(new Point()),
-    new LaserTower(new Point()),
-    new PoisonTower(new Point()),
-    new OmnidirectionalTower(new Point()),
-    new WeakenTower(new Point()),
-    new WaveTower(new Point()),
-    new HomingTower(new Point()),
-    new ChargeTower(new Point()),
-    new ZapperTower(new Point()),
-    new BeamTower(new Point()),
-    new AidTower(new Point()),
-    new Ghost(new Point()),
-  };
+  private static final List<Buildable> buildables = BuildableTypes.createAll();
 
   private static final Color defaultTextColour = Color.YELLOW;
   private static final Color costLabelsColour = Color.GREEN;
@@ -520,10 +484,10 @@ public class ControlPanel extends JPanel {
     GridLayout gl = new GridLayout(numY, numX);
     gl.setVgap(2);
     panel.setLayout(gl);
-    assert buildables.length == total
+    assert buildables.size() == total
         : "Number of tower implementations is " + "different to number of buttons.";
     for (int a = 0; a < numY * numX; a++) {
-      Buildable t = buildables[a];
+      Buildable t = buildables.get(a);
       OverlayButton button = OverlayButton.makeTowerButton(t.getButtonImage());
       buildableTypes.put(button, t);
       button.addActionListener(
@@ -38,9 +38,11 @@ import java.awt.Transparency;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.function.Consumer;
 import javax.swing.JPanel;
 import logic.Constants;
 import util.Helper;
@@ -50,12 +52,19 @@ public class GameMapPanel extends JPanel {
 
   private final boolean debugTimes;
   private final boolean debugPath;
+  // If true the clock's thread draws each frame on volatileBuffer, which can be accelerated, and
+  // paintComponent only copies it on the EDT. Otherwise the drawing is done in paintComponent.
+  private final boolean activeRendering;
 
   private final GameMap gameMap;
 
   private final BufferedImage backgroundImage;
   // Have two precreated buffers as recreating them at each step is much slower
   private BufferedImage buffer;
+  // Only used for active rendering, can be accelerated, but its contents can be lost
+  private VolatileImage volatileBuffer;
+  // Held while the volatile buffer is being drawn on or copied, as they're on different threads
+  private final Object volatileBufferLock = new Object();
 
   private boolean drawingFlag = false;
 
@@ -67,11 +76,13 @@ public class GameMapPanel extends JPanel {
 
   private long lastPaintTime = 0;
 
-  public GameMapPanel(GameMap map, boolean debugTimes, boolean debugPath) {
+  public GameMapPanel(
+      GameMap map, boolean debugTimes, boolean debugPath, boolean activeRendering) {
     int width = Constants.MAP_WIDTH;
     int height = Constants.MAP_HEIGHT;
     this.debugTimes = debugTimes;
     this.debugPath = debugPath;
+    this.activeRendering = activeRendering;
 
     // This class does its own double buffering
     setDoubleBuffered(false);
@@ -103,6 +114,22 @@ public class GameMapPanel extends JPanel {
 
   @Override
   public void paintComponent(Graphics g) {
+    if (activeRendering) {
+      long beginTime = System.nanoTime();
+      synchronized (volatileBufferLock) {
+        // If the contents have been lost, show the map until the clock draws the next frame
+        GraphicsConfiguration gc = getGraphicsConfiguration();
+        if (volatileBuffer != null
+            && gc != null
+            && volatileBuffer.validate(gc) == VolatileImage.IMAGE_OK) {
+          g.drawImage(volatileBuffer, 0, 0, null);
+        } else {
+          g.drawImage(backgroundImage, 0, 0, null);
+        }
+      }
+      lastPaintTime = System.nanoTime() - beginTime;
+      return;
+    }
     // If this is called again while it is drawing, just do nothing, an update will be soon enough
     // and dropping frames is probably the best way to handle the drawing if it starts to lag
     if (!drawingFlag) {
@@ -148,6 +175,12 @@ public class GameMapPanel extends JPanel {
     }
   }
 
+  /**
+   * Draws the drawables, or the game over screen if the game is over.
+   *
+   * @return the time spent drawing on the EDT for the last update, which with active rendering is
+   *     just the time to copy the frame, as the drawing is done here
+   */
   public long redraw(List<Drawable> drawables, DebugStats debugStats) {
     if (gameOver == null) {
       Collections.sort(
@@ -158,8 +191,15 @@ public class GameMapPanel extends JPanel {
               return d1.getZ().ordinal() - d2.getZ().ordinal();
             }
           });
-      this.drawablesToDraw = drawables;
-      this.debugStatsToDraw = debugStats;
+      if (activeRendering) {
+        drawActively(g -> drawUpdate(g, drawables, debugStats));
+      } else {
+        this.drawablesToDraw = drawables;
+        this.debugStatsToDraw = debugStats;
+      }
+    } else if (activeRendering) {
+      // If the buffer's contents are lost, the sliding effect just carries on from nothing
+      drawActively(gameOver::draw);
     } else {
       // Game over needs to always draw on the same buffer for its sliding effect
       Graphics2D g = buffer.createGraphics();
@@ -172,6 +212,36 @@ public class GameMapPanel extends JPanel {
 
   private void drawUpdate(List<Drawable> drawables, DebugStats debugStats) {
     Graphics2D g = buffer.createGraphics();
+    drawUpdate(g, drawables, debugStats);
+    g.dispose();
+  }
+
+  /**
+   * Draws on the volatile buffer from this thread, leaving the EDT only to copy it to the screen
+   * when it paints, so frames aren't dropped while the EDT is busy drawing.
+   */
+  private void drawActively(Consumer<Graphics2D> draw) {
+    GraphicsConfiguration gc = getGraphicsConfiguration();
+    if (gc == null) {
+      // Not on screen yet
+      return;
+    }
+    synchronized (volatileBufferLock) {
+      do {
+        if (volatileBuffer == null
+            || volatileBuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+          volatileBuffer =
+              gc.createCompatibleVolatileImage(
+                  Constants.MAP_WIDTH, Constants.MAP_HEIGHT, Transparency.OPAQUE);
+        }
+        Graphics2D g = volatileBuffer.createGraphics();
+        draw.accept(g);
+        g.dispose();
+      } while (volatileBuffer.contentsLost());
+    }
+  }
+
+  private void drawUpdate(Graphics2D g, List<Drawable> drawables, DebugStats debugStats) {
     // The default value for alpha interpolation causes significant lag
     g.setRenderingHint(
         RenderingHints.KEY_ALPHA_INTERPOLATION, RenderingHints.VALUE_ALPHA_INTERPOLATION_SPEED);
@@ -186,8 +256,6 @@ public class GameMapPanel extends JPanel {
     }
     drawDebug(g, debugStats);
     textDisplay.draw(g);
-
-    g.dispose();
   }
 
   private void drawDebug(Graphics2D g, DebugStats debugStats) {
@@ -33,7 +33,6 @@ import logic.Constants;
 import logic.Game;
 import logic.MyExecutor;
 import logic.Options;
-import towers.AbstractTower;
 
 public class PacDefence {
 
@@ -43,6 +42,7 @@ public class PacDefence {
   private Title title = createTitle();
   private Future<SelectionScreens> selectionScreensFuture;
   private SelectionScreens selectionScreens;
+  private Prerenderer prerenderer;
 
   private Game game;
 
@@ -79,6 +79,8 @@ public class PacDefence {
               throw new RuntimeException(ex);
             }
             ImageHelper.setSkin(title.getSelectedSkin());
+            // Nothing much happens while the map is being chosen, so get the images ready
+            prerenderer = new Prerenderer(selectionScreens.getGameMaps());
             outerContainer.remove(title);
             outerContainer.add(selectionScreens);
             outerContainer.invalidate(); // This is needed for it to work with java7
@@ -112,6 +114,9 @@ public class PacDefence {
   public class GameStarter {
 
     public void startGame(GameMap gm) {
+      // The game uses the executor too, so stop whatever isn't for this map
+      prerenderer.startGame(gm);
+      prerenderer = null;
       // Start the game
       game.startGame(gm);
 
@@ -141,7 +146,6 @@ public class PacDefence {
       outerContainer.validate();
       outerContainer.repaint();
       loadSelectionScreens();
-      AbstractTower.flushImageCache();
     }
   }
 }
@@ -0,0 +1,110 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package gui;
+
+import creeps.Pacman;
+import gui.maps.MapParser.GameMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import logic.MyExecutor;
+import towers.AbstractTower;
+import towers.Buildable;
+import towers.BuildableTypes;
+
+/**
+ * Rotates the creeps' and towers' images in the background while the map is being chosen, so it
+ * isn't done mid level the first time a creep turns a corner or a tower turns.
+ *
+ * <p>The images are put in the shared {@link images.SpriteCache}. Each map and each type of tower
+ * is a separate task, so when the game starts those for the other maps can be stopped, and don't
+ * hold up the game's own tasks.
+ */
+class Prerenderer {
+
+  private final Map<GameMap, Future<?>> mapFutures = new HashMap<GameMap, Future<?>>();
+  private final List<Future<?>> towerFutures = new ArrayList<Future<?>>();
+
+  Prerenderer(List<GameMap> gameMaps) {
+    for (GameMap gm : gameMaps) {
+      mapFutures.put(gm, submit(() -> Pacman.prerender(gm.getPathTable())));
+    }
+    for (Buildable b : BuildableTypes.createAll()) {
+      if (b instanceof AbstractTower) {
+        towerFutures.add(submit(((AbstractTower) b)::prerenderRotations));
+      }
+    }
+  }
+
+  /**
+   * Stops rotating images for anything but the chosen map, interrupting the tasks that have
+   * started, as the game uses the executor too. If the chosen map's creeps weren't finished, the
+   * rest of them are done next.
+   */
+  void startGame(GameMap chosen) {
+    boolean chosenFinished = true;
+    for (Map.Entry<GameMap, Future<?>> e : mapFutures.entrySet()) {
+      boolean finished = stop(e.getValue());
+      if (e.getKey() == chosen) {
+        chosenFinished = finished;
+      }
+    }
+    for (Future<?> f : towerFutures) {
+      stop(f);
+    }
+    mapFutures.clear();
+    towerFutures.clear();
+    if (!chosenFinished) {
+      // Those that were already done are in the cache, so this just does the rest
+      submit(() -> Pacman.prerender(chosen.getPathTable()));
+    }
+  }
+
+  /** Cancels the task if it hasn't finished, returning whether it had. */
+  private boolean stop(Future<?> f) {
+    if (!f.isDone()) {
+      f.cancel(true);
+      return false;
+    }
+    try {
+      f.get();
+    } catch (CancellationException | InterruptedException e) {
+      // Should never happen, as it was done and only this cancels it
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      // Rotating the images failed, which would happen again in the game anyway
+      throw new RuntimeException(e);
+    }
+    return true;
+  }
+
+  private static Future<?> submit(Runnable task) {
+    return MyExecutor.submit(
+        () -> {
+          task.run();
+          return null;
+        });
+  }
+}
@@ -66,6 +66,10 @@ public class SelectionScreens extends JPanel {
     add(createMapSelections(), BorderLayout.CENTER);
   }
 
+  public List<GameMap> getGameMaps() {
+    return gameMaps;
+  }
+
   @Override
   public void paintComponent(Graphics g) {
     g.drawImage(background, 0, 0, null);
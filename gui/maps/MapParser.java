@@ -38,6 +38,7 @@ import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
 import logic.Constants;
+import logic.PathTable;
 import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
@@ -63,7 +64,7 @@ public class MapParser {
       stream.close();
       removeWhitespaceNodes(document);
       // The map should be the only node in the document
-      return parseMap(document.getChildNodes().item(0));
+      return parseMap(fileName, document.getChildNodes().item(0));
     } catch (SAXException e) { // These should hopefully never be thrown
       System.err.println(e.getMessage());
       throw new RuntimeException(e);
@@ -72,7 +73,7 @@ public class MapParser {
     }
   }
 
-  private static GameMap parseMap(Node map) {
+  private static GameMap parseMap(String fileName, Node map) {
     NodeList children = map.getChildNodes();
     String description = null;
     BufferedImage image = null;
@@ -94,7 +95,7 @@ public class MapParser {
         pathBounds = parsePathBounds(n);
       }
     }
-    return new GameMap(description, pathPoints, path, pathBounds, image);
+    return new GameMap(fileName, description, pathPoints, path, pathBounds, image);
   }
 
   private static String parseDescription(Node n) {
@@ -216,25 +217,36 @@ public class MapParser {
 
   public static class GameMap {
 
+    // The name this map was parsed from, so it can be parsed again
+    private final String fileName;
     private final String description;
     private final List<Point> pathPoints;
+    // Shared by every creep that goes along the path
+    private final PathTable pathTable;
     private final List<Polygon> path;
     private final List<Shape> pathBounds;
     private final BufferedImage image;
 
     public GameMap(
+        String fileName,
         String description,
         List<Point> pathPoints,
         List<Polygon> path,
         List<Shape> pathBounds,
         BufferedImage image) {
+      this.fileName = fileName;
       this.description = description;
       this.pathPoints = Collections.unmodifiableList(pathPoints);
+      this.pathTable = new PathTable(pathPoints);
       this.path = Collections.unmodifiableList(path);
       this.pathBounds = Collections.unmodifiableList(pathBounds);
       this.image = image;
     }
 
+    public String getFileName() {
+      return fileName;
+    }
+
     public String getDescription() {
       return description;
     }
@@ -243,6 +255,10 @@ public class MapParser {
       return pathPoints;
     }
 
+    public PathTable getPathTable() {
+      return pathTable;
+    }
+
     public List<Polygon> getPath() {
       return path;
     }
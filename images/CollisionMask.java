@@ -0,0 +1,148 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package images;
+
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Which pixels of an image aren't completely transparent, packed one bit per pixel.
+ *
+ * <p>Looking a pixel up in this is much faster than {@link BufferedImage#getRGB}, which has to
+ * convert the pixel's colour, so this is used for pixel perfect hit tests.
+ */
+public final class CollisionMask {
+
+  // Masks are kept as long as their image is, and BufferedImage uses identity for equals
+  private static final Map<BufferedImage, CollisionMask> masks =
+      new WeakHashMap<BufferedImage, CollisionMask>();
+
+  private final int width;
+  private final int height;
+  private final int wordsPerRow;
+  // Each row starts on a new word
+  private final long[] bits;
+
+  private CollisionMask(BufferedImage image) {
+    width = image.getWidth();
+    height = image.getHeight();
+    wordsPerRow = (width + 63) >>> 6;
+    bits = new long[wordsPerRow * height];
+    boolean opaque = image.getTransparency() == BufferedImage.OPAQUE;
+    int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      image.getRGB(0, y, width, 1, row, 0, width);
+      int rowStart = y * wordsPerRow;
+      for (int x = 0; x < width; x++) {
+        // The same as ImageHelper.isCompletelyTransparent
+        if (opaque || row[x] >>> 24 != 0) {
+          bits[rowStart + (x >>> 6)] |= 1L << x;
+        }
+      }
+    }
+  }
+
+  /** Gets the mask for the image, creating it the first time it is needed. */
+  public static CollisionMask forImage(BufferedImage image) {
+    synchronized (masks) {
+      CollisionMask mask = masks.get(image);
+      if (mask == null) {
+        mask = new CollisionMask(image);
+        masks.put(image, mask);
+      }
+      return mask;
+    }
+  }
+
+  /** True if the pixel at x, y isn't completely transparent, false if it is or is outside. */
+  public boolean isSet(int x, int y) {
+    if (x < 0 || y < 0 || x >= width || y >= height) {
+      return false;
+    }
+    // Shifts of a long only use the lowest 6 bits, so x is the same as x % 64 here
+    return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+  }
+
+  /**
+   * Whether any pixel is set near the line from x1, y1 to x2, y2. This goes a row at a time,
+   * testing a word of the row at once rather than each pixel. It can be true when the line only
+   * passes near a set pixel, but is never false when a point on the line is on one, so it rules out
+   * lines before they are walked a pixel at a time with {@link #isSet}.
+   */
+  public boolean anySetNear(double x1, double y1, double x2, double y2) {
+    if (y1 > y2) {
+      return anySetNear(x2, y2, x1, y1);
+    }
+    int firstRow = Math.max(0, (int) Math.floor(y1) - 1);
+    int lastRow = Math.min(height - 1, (int) Math.floor(y2) + 1);
+    double dxPerY = y2 == y1 ? 0 : (x2 - x1) / (y2 - y1);
+    for (int row = firstRow; row <= lastRow; row++) {
+      // The part of the line from the row above this to the row below it, so the points rounded
+      // into this row are all in it
+      double fromY = Math.max(y1, row - 1);
+      double toY = Math.min(y2, row + 2);
+      if (fromY > toY) {
+        continue;
+      }
+      double fromX = y2 == y1 ? x1 : x1 + (fromY - y1) * dxPerY;
+      double toX = y2 == y1 ? x2 : x1 + (toY - y1) * dxPerY;
+      int minX = Math.max(0, (int) Math.floor(Math.min(fromX, toX)) - 1);
+      int maxX = Math.min(width - 1, (int) Math.floor(Math.max(fromX, toX)) + 1);
+      if (minX <= maxX && anySetInRow(row, minX, maxX)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  /** The number of bytes used by the bits. */
+  public long getBytes() {
+    return 8L * bits.length;
+  }
+
+  /** Whether any pixel in row y from fromX to toX, both inclusive, is set. */
+  private boolean anySetInRow(int y, int fromX, int toX) {
+    int rowStart = y * wordsPerRow;
+    int firstWord = fromX >>> 6;
+    int lastWord = toX >>> 6;
+    for (int w = firstWord; w <= lastWord; w++) {
+      long word = bits[rowStart + w];
+      if (w == firstWord) {
+        word &= -1L << fromX;
+      }
+      if (w == lastWord) {
+        word &= -1L >>> (63 - (toX & 63));
+      }
+      if (word != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
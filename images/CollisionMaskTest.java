@@ -0,0 +1,92 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package images;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import org.junit.Test;
+import util.Helper;
+
+public class CollisionMaskTest {
+
+  @Test
+  public void testSameAsIsCompletelyTransparent() {
+    // Wider than a word so rows span more than one
+    BufferedImage image = new BufferedImage(70, 5, BufferedImage.TYPE_INT_ARGB);
+    Random rand = new Random(1);
+    for (int x = 0; x < image.getWidth(); x++) {
+      for (int y = 0; y < image.getHeight(); y++) {
+        image.setRGB(x, y, rand.nextBoolean() ? 0x00FFFFFF : rand.nextInt());
+      }
+    }
+    CollisionMask mask = CollisionMask.forImage(image);
+    for (int x = 0; x < image.getWidth(); x++) {
+      for (int y = 0; y < image.getHeight(); y++) {
+        assertEquals(!ImageHelper.isCompletelyTransparent(image, x, y), mask.isSet(x, y));
+      }
+    }
+    assertFalse(mask.isSet(-1, 0));
+    assertFalse(mask.isSet(70, 0));
+    assertSame(mask, CollisionMask.forImage(image));
+  }
+
+  @Test
+  public void testAnySetNearFindsEveryHit() {
+    // Mostly transparent, so many of the lines miss
+    BufferedImage image = new BufferedImage(130, 40, BufferedImage.TYPE_INT_ARGB);
+    Random rand = new Random(2);
+    for (int i = 0; i < 20; i++) {
+      image.setRGB(rand.nextInt(image.getWidth()), rand.nextInt(image.getHeight()), 0xFF000000);
+    }
+    CollisionMask mask = CollisionMask.forImage(image);
+    int numMissed = 0;
+    for (int i = 0; i < 10000; i++) {
+      Line2D line =
+          new Line2D.Double(
+              rand.nextDouble() * 150 - 10,
+              rand.nextDouble() * 60 - 10,
+              rand.nextDouble() * 150 - 10,
+              rand.nextDouble() * 60 - 10);
+      boolean anySet = mask.anySetNear(line.getX1(), line.getY1(), line.getX2(), line.getY2());
+      if (Helper.findPointOnLine(line, (x, y) -> mask.isSet((int) x, (int) y)) != null) {
+        assertTrue(line.getP1() + " to " + line.getP2(), anySet);
+      } else if (!anySet) {
+        numMissed++;
+      }
+    }
+    // It should rule out lots of the lines that miss
+    assertTrue(numMissed > 1000);
+    assertFalse(mask.anySetNear(-5, -5, -1, 100));
+  }
+
+  @Test
+  public void testOpaqueImage() {
+    CollisionMask mask =
+        CollisionMask.forImage(new BufferedImage(3, 3, BufferedImage.TYPE_INT_RGB));
+    assertTrue(mask.isSet(0, 0));
+    assertTrue(mask.isSet(2, 2));
+  }
+}
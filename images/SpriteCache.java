@@ -0,0 +1,168 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package images;
+
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps sprites that are slow to make, like rotated images, up to a budget of bytes. When adding
+ * a sprite takes it over the budget the least recently used sprites are dropped, and are made
+ * again if they're needed.
+ *
+ * <p>This can be used from any thread. Sprites are made outside the lock, so one thread making a
+ * sprite doesn't hold up others, though two threads may both make the same sprite.
+ */
+public final class SpriteCache {
+
+  public static final long DEFAULT_BUDGET = 64L * 1024 * 1024;
+
+  private static final SpriteCache shared = new SpriteCache(DEFAULT_BUDGET);
+
+  // In order of use, least recently used first
+  private final Map<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75F, true);
+  private long budget;
+  private long bytes = 0;
+  private long hits = 0;
+  private long misses = 0;
+  private long evictions = 0;
+
+  public SpriteCache(long budget) {
+    setBudget(budget);
+  }
+
+  /** The cache the towers and creeps share. */
+  public static SpriteCache getShared() {
+    return shared;
+  }
+
+  /**
+   * Gets the sprite for the key, making it if it isn't in the cache.
+   *
+   * @param key must have equals and hashCode, and be different for each sort of sprite
+   * @param sizeOf how many bytes the sprite uses
+   */
+  public <V> V get(Object key, Supplier<V> create, ToLongFunction<? super V> sizeOf) {
+    synchronized (this) {
+      Entry e = entries.get(key);
+      if (e != null) {
+        hits++;
+        @SuppressWarnings("unchecked")
+        V value = (V) e.value;
+        return value;
+      }
+      misses++;
+    }
+    V value = create.get();
+    long size = sizeOf.applyAsLong(value);
+    synchronized (this) {
+      Entry e = entries.get(key);
+      if (e != null) {
+        // Another thread made it first, so use theirs so every user has the same one
+        @SuppressWarnings("unchecked")
+        V existing = (V) e.value;
+        return existing;
+      }
+      entries.put(key, new Entry(value, size));
+      bytes += size;
+      evict();
+    }
+    return value;
+  }
+
+  /** Sets the number of bytes the sprites can use, dropping sprites if they're over it. */
+  public synchronized void setBudget(long budget) {
+    if (budget < 0) {
+      throw new IllegalArgumentException("Budget must be >= 0.");
+    }
+    this.budget = budget;
+    evict();
+  }
+
+  public synchronized long getBudget() {
+    return budget;
+  }
+
+  /** The number of bytes used by the sprites in the cache. */
+  public synchronized long getBytes() {
+    return bytes;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /** Drops every sprite, but keeps the counts. */
+  public synchronized void clear() {
+    entries.clear();
+    bytes = 0;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return entries.size() + " sprites using " + bytes / 1024 + "KB of " + budget / 1024
+        + "KB, " + hits + " hits, " + misses + " misses, " + evictions + " evictions";
+  }
+
+  /** An estimate of the bytes used by the image's pixels. */
+  public static long sizeOf(BufferedImage image) {
+    // Most of the images are ARGB, so this is right for them, and close enough for the others
+    return 4L * image.getWidth() * image.getHeight();
+  }
+
+  private void evict() {
+    Iterator<Entry> i = entries.values().iterator();
+    // Keep the most recently used sprite even if it's over the budget on its own, as it's about
+    // to be used
+    while (bytes > budget && entries.size() > 1) {
+      Entry e = i.next();
+      i.remove();
+      bytes -= e.size;
+      evictions++;
+    }
+  }
+
+  private static class Entry {
+    final Object value;
+    final long size;
+
+    Entry(Object value, long size) {
+      this.value = value;
+      this.size = size;
+    }
+  }
+}
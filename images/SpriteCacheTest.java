@@ -0,0 +1,57 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package images;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class SpriteCacheTest {
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    SpriteCache cache = new SpriteCache(30);
+    String a = get(cache, "a");
+    get(cache, "b");
+    get(cache, "c");
+    // Using a makes b the least recently used
+    assertSame(a, get(cache, "a"));
+    get(cache, "d");
+    assertEquals(3, cache.size());
+    assertEquals(30, cache.getBytes());
+    assertEquals(1, cache.getEvictions());
+    assertSame(a, get(cache, "a"));
+    assertEquals(2, cache.getHits());
+    assertEquals(4, cache.getMisses());
+    get(cache, "b");
+    assertEquals(5, cache.getMisses());
+
+    cache.setBudget(10);
+    assertEquals(1, cache.size());
+    assertEquals(4, cache.getEvictions());
+  }
+
+  private String get(SpriteCache cache, String key) {
+    // A new string each time, so the same one is only returned if it was cached
+    return cache.get(key, () -> new String(key), s -> 10);
+  }
+}
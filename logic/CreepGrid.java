@@ -24,81 +24,201 @@ import java.awt.geom.Arc2D;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.util.AbstractCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import util.Circle;
 import util.Helper;
 
+/**
+ * Splits the creeps up into square cells, so the creeps near a bullet can be found quickly.
+ *
+ * <p>This lasts for the whole game, and each creep is moved between the cells with {@link #update}
+ * as it moves, rather than the grid being made again every tick. As the cells rarely change from
+ * tick to tick, the combined cells are cached across ticks too, and only made again when one of
+ * their cells has changed.
+ *
+ * <p>The number of cells can be fixed, or adapted to the number of creeps at the start of each
+ * tick, as a few creeps are best in a few large cells and lots in lots of small ones.
+ */
 public class CreepGrid {
 
   // The distance over the edge of the map that cells are created.
   private static final int overflow = 100;
 
-  private static final int nDivisions = 5;
-  private static final int totalCells = nDivisions * nDivisions;
+  // Used when adapting the cells to the number of creeps
+  private static final int minDivisions = 4;
+  private static final int maxDivisions = 16;
+  private static final int targetCreepsPerCell = 4;
+  // Going past this many different combinations would mean the cache isn't helping
+  private static final int maxCachedCombinations = 1024;
+
+  private final boolean adaptive;
+  private int nDivisions;
+  private int totalCells;
   // Width (horizontal and vertical) of each cell in the grid.
-  private static final int cellWidth = (Constants.MAP_WIDTH + 2 * overflow) / nDivisions;
+  private double cellWidth;
 
-  private final List<Creep> creeps;
-  private final List<Cell> cells;
-  private final Map<BitSet, Collection<Creep>> combinedCellsCache = new HashMap<>();
+  private List<Creep> creeps = Collections.emptyList();
+  // Indexed by i * nDivisions + j
+  private volatile Cell[] cells;
+  // The cells each creep is in, in the order they were added so resizing is deterministic
+  private final Map<Creep, CellRange> ranges;
+  // Bullets can be ticked in parallel, so this needs to be thread safe
+  private final Map<BitSet, CombinedCells> combinedCellsCache = new ConcurrentHashMap<>();
 
-  public CreepGrid(List<Creep> creeps) {
-    this.creeps = Collections.unmodifiableList(creeps);
+  /** Creates a grid that adapts its cells to the number of creeps. */
+  public CreepGrid() {
+    this(minDivisions, true);
+  }
 
-    this.cells = new ArrayList<>();
+  /** Creates a grid with nDivisions by nDivisions cells. */
+  public CreepGrid(int nDivisions) {
+    this(nDivisions, false);
+  }
 
-    for (int i = 0; i < nDivisions; i++) {
-      for (int j = 0; j < nDivisions; j++) {
-        Cell cell = new Cell(i, j, creeps);
-        if (!cell.creeps.isEmpty()) {
-          this.cells.add(cell);
-        }
-        // System.out.println(i + "," + j + " : " + cell.creeps.size());
+  private CreepGrid(int nDivisions, boolean adaptive) {
+    if (nDivisions <= 0) {
+      throw new IllegalArgumentException("nDivisions must be positive, was " + nDivisions);
+    }
+    this.adaptive = adaptive;
+    this.ranges = new LinkedHashMap<>();
+    makeCells(nDivisions);
+  }
+
+  /** For {@link ExcludingView}, which finds creeps using base rather than its own cells. */
+  private CreepGrid(CreepGrid base) {
+    this.adaptive = false;
+    this.nDivisions = base.nDivisions;
+    this.totalCells = base.totalCells;
+    this.cellWidth = base.cellWidth;
+    this.ranges = Collections.emptyMap();
+  }
+
+  /**
+   * Gets a view of this grid without the given creeps. Nothing is copied, the excluded creeps are
+   * just skipped when going through the creeps the view finds, so creeps added to excluding later
+   * are skipped too. This grid shouldn't be changed while the view is being used.
+   */
+  public CreepGrid excluding(Collection<Creep> excluding) {
+    return new ExcludingView(this, excluding);
+  }
+
+  /**
+   * Sets the creeps, in the order they should be targeted, for this tick. If the grid adapts its
+   * cells to the number of creeps, this is also when they're changed.
+   */
+  public void beginTick(List<Creep> creeps) {
+    this.creeps = Collections.unmodifiableList(creeps);
+    if (adaptive) {
+      int wanted = (int) Math.round(Math.sqrt((double) ranges.size() / targetCreepsPerCell));
+      wanted = Math.max(minDivisions, Math.min(maxDivisions, wanted));
+      // Leave a little leeway so the cells don't flip back and forth around a boundary
+      if (Math.abs(wanted - nDivisions) > 1) {
+        resize(wanted);
       }
     }
+    if (combinedCellsCache.size() > maxCachedCombinations) {
+      combinedCellsCache.clear();
+    }
   }
 
-  private CreepGrid(CreepGrid base, Collection<Creep> excluding) {
-    this.creeps = Collections.unmodifiableList(Helper.filter(base.creeps, excluding));
+  /**
+   * Puts the creep in the cells it is now in, adding it if it isn't in the grid yet. This should be
+   * called whenever a creep moves.
+   */
+  public void update(Creep c) {
+    CellRange oldRange = ranges.get(c);
+    CellRange newRange = rangeOf(c);
+    if (newRange.equals(oldRange)) {
+      return;
+    }
+    if (oldRange != null) {
+      for (int k : oldRange.cellIndices(nDivisions)) {
+        if (!newRange.contains(k / nDivisions, k % nDivisions)) {
+          cells[k].remove(c);
+        }
+      }
+    }
+    // Creeps are added to the end of a cell, so those that got there first, and are usually
+    // closest to the end of the path, are hit first when a bullet could hit more than one.
+    for (int k : newRange.cellIndices(nDivisions)) {
+      if (oldRange == null || !oldRange.contains(k / nDivisions, k % nDivisions)) {
+        cells[k].add(c);
+      }
+    }
+    ranges.put(c, newRange);
+  }
 
-    this.cells = new ArrayList<>(base.cells.size());
-    for (Cell cell : base.cells) {
-      this.cells.add(new Cell(cell, excluding));
+  public void remove(Creep c) {
+    CellRange range = ranges.remove(c);
+    if (range != null) {
+      for (int k : range.cellIndices(nDivisions)) {
+        cells[k].remove(c);
+      }
     }
   }
 
-  public CreepGrid excluding(Collection<Creep> excluding) {
-    return new CreepGrid(this, excluding);
+  public void clear() {
+    ranges.clear();
+    creeps = Collections.emptyList();
+    makeCells(adaptive ? minDivisions : nDivisions);
+  }
+
+  public int getNumDivisions() {
+    return nDivisions;
   }
 
   public List<Creep> allCreeps() {
     return this.creeps;
   }
 
-  public Collection<Creep> filter(Line2D line) {
-    // In most cases the line will only intersect one cell
-    List<Cell> intersectingCells = new ArrayList<>(this.cells.size());
-    for (Cell cell : this.cells) {
-      if (cell.bounds.intersectsLine(line)) {
-        intersectingCells.add(cell);
-      }
-    }
-    return combineIntersectingCells(intersectingCells);
+  /**
+   * The creeps in the cell the point is in, which are the only ones that could be at it.
+   *
+   * <p>Unlike the rest of the grid, this can be used from another thread, like the GUI's, while
+   * the creeps are being moved, as the cells' lists of creeps are replaced rather than changed.
+   */
+  public Collection<Creep> at(Point2D p) {
+    // Read the cells once, as they're replaced when the grid is resized
+    Cell[] currentCells = cells;
+    int n = (int) Math.round(Math.sqrt(currentCells.length));
+    double width = currentCells[0].bounds.getWidth();
+    int i = Math.max(0, Math.min(n - 1, (int) Math.floor((p.getX() + overflow) / width)));
+    int j = Math.max(0, Math.min(n - 1, (int) Math.floor((p.getY() + overflow) / width)));
+    return currentCells[i * n + j].creeps;
+  }
+
+  /**
+   * The creeps in the cells the line crosses, in the order the line crosses the cells, each only
+   * once. The cells are walked along the line rather than checked one by one, and nothing is
+   * collected, as this is done for every bullet on every tick.
+   */
+  public Iterable<Creep> filter(Line2D line) {
+    final double x1 = line.getX1();
+    final double y1 = line.getY1();
+    final double x2 = line.getX2();
+    final double y2 = line.getY2();
+    return () -> new LineIterator(x1, y1, x2, y2);
   }
 
   public Collection<Creep> filter(Arc2D arc) {
     Rectangle2D arcBounds = arc.getBounds2D();
-    List<Cell> intersectingCells = new ArrayList<>(this.cells.size());
+    List<Cell> intersectingCells = new ArrayList<>();
     for (Cell cell : this.cells) {
-      if (cell.bounds.intersects(arcBounds)) {
+      if (!cell.isEmpty() && cell.bounds.intersects(arcBounds)) {
         intersectingCells.add(cell);
       }
     }
@@ -106,9 +226,9 @@ public class CreepGrid {
   }
 
   public Collection<Creep> filter(Circle circle) {
-    List<Cell> intersectingCells = new ArrayList<>(this.cells.size());
+    List<Cell> intersectingCells = new ArrayList<>();
     for (Cell cell : this.cells) {
-      if (circle.intersects(cell.bounds)) {
+      if (!cell.isEmpty() && circle.intersects(cell.bounds)) {
         intersectingCells.add(cell);
       }
     }
@@ -116,8 +236,11 @@ public class CreepGrid {
   }
 
   public Collection<Creep> filter(List<Point2D> points) {
-    List<Cell> intersectingCells = new ArrayList<>(this.cells.size());
+    List<Cell> intersectingCells = new ArrayList<>();
     for (Cell cell : this.cells) {
+      if (cell.isEmpty()) {
+        continue;
+      }
       for (Point2D p : points) {
         if (cell.bounds.contains(p)) {
           intersectingCells.add(cell);
@@ -129,64 +252,471 @@ public class CreepGrid {
   }
 
   private Collection<Creep> combineIntersectingCells(List<Cell> cells) {
-    int size = cells.size();
     switch (cells.size()) {
       case 0:
         return Collections.emptyList();
       case 1:
         return cells.get(0).creeps;
-      case totalCells:
-        return this.creeps;
       default:
         BitSet bs = new BitSet(totalCells);
+        long version = 0;
         for (Cell c : cells) {
-          bs.set(c.i * nDivisions + c.j);
+          bs.set(c.index);
+          version += c.version;
+        }
+        // As versions only go up, the sum only stays the same if none of the cells have changed
+        CombinedCells combined = this.combinedCellsCache.get(bs);
+        if (combined == null || combined.version != version) {
+          combined = new CombinedCells(version, combine(cells));
+          this.combinedCellsCache.put(bs, combined);
         }
-        return this.combinedCellsCache.computeIfAbsent(
-            bs,
-            k -> {
-              // In the tight loop, resizing the hash set is expensive, so lets get it close. This
-              // will usually be an overestimate as some creeps are cross multiple cells, but there
-              // are never that many creeps, max ~200, so the array is always tiny.
-              int expectedCreeps = 0;
-              for (Cell cell : cells) {
-                expectedCreeps += cell.creeps.size();
-              }
-              Set<Creep> creeps = HashSet.newHashSet(expectedCreeps);
-              for (Cell cell : cells) {
-                creeps.addAll(cell.creeps);
-              }
-              return creeps;
-            });
+        return combined.creeps;
     }
   }
 
-  private static final class Cell {
+  private static Collection<Creep> combine(List<Cell> cells) {
+    // In the tight loop, resizing the hash set is expensive, so lets get it close. This will
+    // usually be an overestimate as some creeps are cross multiple cells, but there are never that
+    // many creeps, max ~200, so the array is always tiny.
+    int expectedCreeps = 0;
+    for (Cell cell : cells) {
+      expectedCreeps += cell.creeps.size();
+    }
+    // Keep the creeps in order, so which creep is hit first doesn't depend on their hash codes,
+    // which vary from run to run.
+    Set<Creep> creeps = LinkedHashSet.newLinkedHashSet(expectedCreeps);
+    for (Cell cell : cells) {
+      creeps.addAll(cell.creeps);
+    }
+    return Collections.unmodifiableSet(creeps);
+  }
 
-    private final int i, j;
-    private final Rectangle2D bounds;
-    private final List<Creep> creeps;
-
-    private Cell(int i, int j, List<Creep> creeps) {
-      this.i = i;
-      this.j = j;
-      int x = -overflow + i * cellWidth;
-      int y = -overflow + j * cellWidth;
-      this.bounds = new Rectangle2D.Float(x, y, cellWidth, cellWidth);
-      List<Creep> containedCreeps = new ArrayList<>();
-      for (Creep c : creeps) {
-        if (c.getBounds().intersects(this.bounds)) {
-          containedCreeps.add(c);
+  private void makeCells(int nDivisions) {
+    this.nDivisions = nDivisions;
+    this.totalCells = nDivisions * nDivisions;
+    this.cellWidth = (Constants.MAP_WIDTH + 2.0 * overflow) / nDivisions;
+    // Only set cells once they're all made, for at()
+    Cell[] newCells = new Cell[totalCells];
+    for (int i = 0; i < nDivisions; i++) {
+      for (int j = 0; j < nDivisions; j++) {
+        newCells[i * nDivisions + j] = new Cell(i * nDivisions + j, i, j, cellWidth);
+      }
+    }
+    this.cells = newCells;
+    combinedCellsCache.clear();
+  }
+
+  private void resize(int nDivisions) {
+    // Put the creeps back in the order they're targeted, then any the grid has that aren't in that
+    List<Creep> toAdd = new ArrayList<>(ranges.size());
+    for (Creep c : creeps) {
+      if (ranges.containsKey(c)) {
+        toAdd.add(c);
+      }
+    }
+    Set<Creep> added = Collections.newSetFromMap(new IdentityHashMap<Creep, Boolean>());
+    added.addAll(toAdd);
+    for (Creep c : ranges.keySet()) {
+      if (!added.contains(c)) {
+        toAdd.add(c);
+      }
+    }
+    ranges.clear();
+    makeCells(nDivisions);
+    for (Creep c : toAdd) {
+      update(c);
+    }
+  }
+
+  private CellRange rangeOf(Creep c) {
+    Point2D p = c.getPosition();
+    int halfWidth = c.getHalfWidth();
+    return new CellRange(
+        cellIndex(p.getX() - halfWidth),
+        cellIndex(p.getX() + halfWidth),
+        cellIndex(p.getY() - halfWidth),
+        cellIndex(p.getY() + halfWidth));
+  }
+
+  /** The index of the column or row the coordinate is in, which may be off the grid. */
+  private int cellIndex(double coordinate) {
+    return (int) Math.floor((coordinate + overflow) / cellWidth);
+  }
+
+  /**
+   * Walks the cells a line crosses in order, using the method from Amanatides and Woo's "A Fast
+   * Voxel Traversal Algorithm for Ray Tracing", going through the creeps in each.
+   */
+  private final class LineIterator implements Iterator<Creep> {
+
+    // Distances along the line are as a fraction of its length, from 0 to 1
+    private final int stepI, stepJ;
+    // How far along the line it is to cross a whole cell horizontally and vertically
+    private final double deltaX, deltaY;
+    private final double end;
+    // How far along the line the next vertical and horizontal cell boundaries are
+    private double nextX, nextY;
+    private int i, j;
+    private boolean finished;
+
+    // The cells visited so far, to check whether a creep has already been returned
+    private int[] visited = new int[4];
+    private int numVisited = 0;
+    private List<Creep> cellCreeps = Collections.emptyList();
+    private int creepIndex = 0;
+    private Creep next;
+
+    private LineIterator(double x1, double y1, double x2, double y2) {
+      double dx = x2 - x1;
+      double dy = y2 - y1;
+      // Clip the line to the grid first, as it may start or finish off it
+      double min = -overflow;
+      double max = min + nDivisions * cellWidth;
+      double start = 0;
+      double end = 1;
+      if (dx == 0) {
+        if (x1 < min || x1 > max) {
+          end = -1;
+        }
+      } else {
+        double t1 = (min - x1) / dx;
+        double t2 = (max - x1) / dx;
+        start = Math.max(start, Math.min(t1, t2));
+        end = Math.min(end, Math.max(t1, t2));
+      }
+      if (dy == 0) {
+        if (y1 < min || y1 > max) {
+          end = -1;
+        }
+      } else {
+        double t1 = (min - y1) / dy;
+        double t2 = (max - y1) / dy;
+        start = Math.max(start, Math.min(t1, t2));
+        end = Math.min(end, Math.max(t1, t2));
+      }
+      this.end = end;
+      i = clamp(cellIndex(x1 + start * dx));
+      j = clamp(cellIndex(y1 + start * dy));
+      stepI = (int) Math.signum(dx);
+      stepJ = (int) Math.signum(dy);
+      deltaX = dx == 0 ? Double.POSITIVE_INFINITY : cellWidth / Math.abs(dx);
+      deltaY = dy == 0 ? Double.POSITIVE_INFINITY : cellWidth / Math.abs(dy);
+      nextX = boundaryDistance(x1, dx, i, stepI);
+      nextY = boundaryDistance(y1, dy, j, stepJ);
+      if (start > end) {
+        finished = true;
+        return;
+      }
+      visitCell();
+      advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public Creep next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      Creep c = next;
+      advance();
+      return c;
+    }
+
+    private void advance() {
+      next = null;
+      while (!finished) {
+        while (creepIndex < cellCreeps.size()) {
+          Creep c = cellCreeps.get(creepIndex++);
+          if (!inEarlierCell(c)) {
+            next = c;
+            return;
+          }
+        }
+        nextCell();
+      }
+    }
+
+    private void nextCell() {
+      // Go over whichever boundary the line gets to first
+      if (nextX < nextY) {
+        if (nextX > end) {
+          finished = true;
+          return;
+        }
+        i += stepI;
+        nextX += deltaX;
+      } else {
+        if (nextY > end) {
+          finished = true;
+          return;
+        }
+        j += stepJ;
+        nextY += deltaY;
+      }
+      if (i < 0 || j < 0 || i >= nDivisions || j >= nDivisions) {
+        finished = true;
+        return;
+      }
+      visitCell();
+    }
+
+    private void visitCell() {
+      int index = i * nDivisions + j;
+      if (numVisited == visited.length) {
+        visited = Arrays.copyOf(visited, numVisited * 2);
+      }
+      visited[numVisited++] = index;
+      cellCreeps = cells[index].creeps;
+      creepIndex = 0;
+    }
+
+    private boolean inEarlierCell(Creep c) {
+      if (numVisited == 1) {
+        return false;
+      }
+      CellRange range = ranges.get(c);
+      for (int k = 0; k < numVisited - 1; k++) {
+        if (range.contains(visited[k] / nDivisions, visited[k] % nDivisions)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /** How far along the line it is to the first cell boundary in the direction it's going. */
+    private double boundaryDistance(double from, double delta, int index, int step) {
+      if (step == 0) {
+        return Double.POSITIVE_INFINITY;
+      }
+      double boundary = -overflow + (step > 0 ? index + 1 : index) * cellWidth;
+      return (boundary - from) / delta;
+    }
+
+    private int clamp(int index) {
+      return Math.max(0, Math.min(nDivisions - 1, index));
+    }
+  }
+
+  private static final class ExcludingView extends CreepGrid {
+
+    private final CreepGrid base;
+    private final Collection<Creep> excluding;
+
+    private ExcludingView(CreepGrid base, Collection<Creep> excluding) {
+      super(base);
+      this.base = base;
+      this.excluding = excluding;
+    }
+
+    @Override
+    public void beginTick(List<Creep> creeps) {
+      throw new UnsupportedOperationException("Can't change a view of a grid");
+    }
+
+    @Override
+    public void update(Creep c) {
+      throw new UnsupportedOperationException("Can't change a view of a grid");
+    }
+
+    @Override
+    public void remove(Creep c) {
+      throw new UnsupportedOperationException("Can't change a view of a grid");
+    }
+
+    @Override
+    public void clear() {
+      throw new UnsupportedOperationException("Can't change a view of a grid");
+    }
+
+    @Override
+    public int getNumDivisions() {
+      return base.getNumDivisions();
+    }
+
+    @Override
+    public List<Creep> allCreeps() {
+      // This is rarely used on a view, so isn't worth making lazy
+      return Collections.unmodifiableList(Helper.filter(base.allCreeps(), excluding));
+    }
+
+    @Override
+    public Collection<Creep> at(Point2D p) {
+      return new ExcludedCreeps(base.at(p), excluding);
+    }
+
+    @Override
+    public Iterable<Creep> filter(Line2D line) {
+      return new ExcludedCreeps(base.filter(line), excluding);
+    }
+
+    @Override
+    public Collection<Creep> filter(Arc2D arc) {
+      return new ExcludedCreeps(base.filter(arc), excluding);
+    }
+
+    @Override
+    public Collection<Creep> filter(Circle circle) {
+      return new ExcludedCreeps(base.filter(circle), excluding);
+    }
+
+    @Override
+    public Collection<Creep> filter(List<Point2D> points) {
+      return new ExcludedCreeps(base.filter(points), excluding);
+    }
+  }
+
+  /** The creeps in base that aren't in excluding, worked out as they're iterated over. */
+  private static final class ExcludedCreeps extends AbstractCollection<Creep> {
+
+    private final Iterable<Creep> base;
+    private final Collection<Creep> excluding;
+
+    private ExcludedCreeps(Iterable<Creep> base, Collection<Creep> excluding) {
+      this.base = base;
+      this.excluding = excluding;
+    }
+
+    @Override
+    public Iterator<Creep> iterator() {
+      final Iterator<Creep> it = base.iterator();
+      return new Iterator<Creep>() {
+        private Creep next = findNext();
+
+        @Override
+        public boolean hasNext() {
+          return next != null;
+        }
+
+        @Override
+        public Creep next() {
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          Creep c = next;
+          next = findNext();
+          return c;
+        }
+
+        private Creep findNext() {
+          while (it.hasNext()) {
+            Creep c = it.next();
+            if (!excluding.contains(c)) {
+              return c;
+            }
+          }
+          return null;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      int size = 0;
+      for (Iterator<Creep> it = iterator(); it.hasNext(); it.next()) {
+        size++;
+      }
+      return size;
+    }
+  }
+
+  /** The columns and rows of the cells a creep is in, inclusive, before limiting to the grid. */
+  private static final class CellRange {
+
+    private final int minI, maxI, minJ, maxJ;
+
+    private CellRange(int minI, int maxI, int minJ, int maxJ) {
+      this.minI = minI;
+      this.maxI = maxI;
+      this.minJ = minJ;
+      this.maxJ = maxJ;
+    }
+
+    private boolean contains(int i, int j) {
+      return i >= minI && i <= maxI && j >= minJ && j <= maxJ;
+    }
+
+    private int[] cellIndices(int nDivisions) {
+      int fromI = Math.max(minI, 0);
+      int toI = Math.min(maxI, nDivisions - 1);
+      int fromJ = Math.max(minJ, 0);
+      int toJ = Math.min(maxJ, nDivisions - 1);
+      if (fromI > toI || fromJ > toJ) {
+        return new int[0];
+      }
+      int[] indices = new int[(toI - fromI + 1) * (toJ - fromJ + 1)];
+      int n = 0;
+      for (int i = fromI; i <= toI; i++) {
+        for (int j = fromJ; j <= toJ; j++) {
+          indices[n++] = i * nDivisions + j;
         }
       }
-      this.creeps = Collections.unmodifiableList(containedCreeps);
+      return indices;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof CellRange)) {
+        return false;
+      }
+      CellRange r = (CellRange) obj;
+      return minI == r.minI && maxI == r.maxI && minJ == r.minJ && maxJ == r.maxJ;
+    }
+
+    @Override
+    public int hashCode() {
+      return ((minI * 31 + maxI) * 31 + minJ) * 31 + maxJ;
+    }
+  }
+
+  private static final class CombinedCells {
+
+    private final long version;
+    private final Collection<Creep> creeps;
+
+    private CombinedCells(long version, Collection<Creep> creeps) {
+      this.version = version;
+      this.creeps = creeps;
+    }
+  }
+
+  private static final class Cell {
+
+    private final int index;
+    private final Rectangle2D bounds;
+    // Replaced rather than changed when a creep is added or removed, so it can be read from
+    // another thread by at(). There are only a few creeps in a cell, so copying it is cheap.
+    private volatile List<Creep> creeps = Collections.emptyList();
+    // Goes up every time a creep is added or removed
+    private long version = 0;
+
+    private Cell(int index, int i, int j, double cellWidth) {
+      this.index = index;
+      double x = -overflow + i * cellWidth;
+      double y = -overflow + j * cellWidth;
+      this.bounds = new Rectangle2D.Double(x, y, cellWidth, cellWidth);
+    }
+
+    private boolean isEmpty() {
+      return creeps.isEmpty();
+    }
+
+    private void add(Creep c) {
+      List<Creep> added = new ArrayList<>(creeps.size() + 1);
+      added.addAll(creeps);
+      added.add(c);
+      creeps = Collections.unmodifiableList(added);
+      version++;
     }
 
-    private Cell(Cell base, Collection<Creep> excluding) {
-      this.i = base.i;
-      this.j = base.j;
-      this.bounds = base.bounds;
-      this.creeps = Collections.unmodifiableList(Helper.filter(base.creeps, excluding));
+    private void remove(Creep c) {
+      List<Creep> removed = new ArrayList<>(creeps);
+      removed.remove(c);
+      creeps = Collections.unmodifiableList(removed);
+      version++;
     }
   }
 }
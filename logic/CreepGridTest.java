@@ -0,0 +1,192 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import creeps.Creep;
+import creeps.CreepStore;
+import creeps.Pacman;
+import java.awt.Point;
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Test;
+
+public class CreepGridTest {
+
+  // How far off the map creeps and lines can go, which is further than the grid goes
+  private static final int offMap = 300;
+  // The grid only goes this far over the edge of the map, and creeps past it aren't in any cell
+  private static final Rectangle2D gridBounds =
+      new Rectangle2D.Double(-100, -100, Constants.MAP_WIDTH + 200, Constants.MAP_WIDTH + 200);
+
+  private final Random rand = new Random(5);
+  private final CreepStore store = new CreepStore();
+
+  @Test
+  public void testFixedGridFindsTheSameAsCheckingEveryCreep() {
+    CreepGrid grid = new CreepGrid(7);
+    List<Creep> creeps = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      addCreep(grid, creeps);
+    }
+    for (int i = 0; i < 20; i++) {
+      moveCreeps(grid, creeps);
+      checkLines(grid, creeps, 1000);
+    }
+  }
+
+  @Test
+  public void testAdaptiveGridFindsTheSameAsCheckingEveryCreep() {
+    CreepGrid grid = new CreepGrid();
+    List<Creep> creeps = new ArrayList<>();
+    List<Integer> sizes = new ArrayList<>();
+    // Grow then shrink, so the grid is resized both ways
+    for (int numCreeps : new int[] {5, 100, 600, 1000, 200, 20}) {
+      while (creeps.size() < numCreeps) {
+        addCreep(grid, creeps);
+      }
+      while (creeps.size() > numCreeps) {
+        grid.remove(creeps.remove(rand.nextInt(creeps.size())));
+      }
+      for (int i = 0; i < 5; i++) {
+        moveCreeps(grid, creeps);
+        checkLines(grid, creeps, 1000);
+      }
+      sizes.add(grid.getNumDivisions());
+    }
+    assertTrue("Grid was never resized: " + sizes, new HashSet<>(sizes).size() > 2);
+  }
+
+  @Test
+  public void testLinesOffTheGridFindNothing() {
+    CreepGrid grid = new CreepGrid(5);
+    List<Creep> creeps = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      addCreep(grid, creeps);
+    }
+    grid.beginTick(creeps);
+    double far = Constants.MAP_WIDTH + 1000;
+    assertFindsNothing(grid.filter(new Line2D.Double(-1000, -1000, -1000, far)));
+    assertFindsNothing(grid.filter(new Line2D.Double(-1000, far, far, far)));
+    assertFindsNothing(grid.filter(new Line2D.Double(-2000, 0, 0, -2000)));
+  }
+
+  private void addCreep(CreepGrid grid, List<Creep> creeps) {
+    PathTable path =
+        new PathTable(Arrays.asList(randomMapPoint(), randomMapPoint(), randomMapPoint()));
+    Creep c = Pacman.create(1, 1000, path, store, rand);
+    creeps.add(c);
+    grid.update(c);
+  }
+
+  private void moveCreeps(CreepGrid grid, List<Creep> creeps) {
+    for (Creep c : creeps) {
+      for (int i = rand.nextInt(20); i > 0; i--) {
+        c.tick();
+      }
+      grid.update(c);
+    }
+    grid.beginTick(creeps);
+  }
+
+  private void checkLines(CreepGrid grid, List<Creep> creeps, int numLines) {
+    for (int n = 0; n < numLines; n++) {
+      Point2D p1 = randomPoint();
+      Point2D p2;
+      switch (n % 4) {
+        case 0:
+          // Vertical
+          p2 = new Point2D.Double(p1.getX(), randomCoordinate());
+          break;
+        case 1:
+          // Horizontal
+          p2 = new Point2D.Double(randomCoordinate(), p1.getY());
+          break;
+        case 2:
+          // Short, like a bullet's movement in one tick
+          p2 =
+              new Point2D.Double(
+                  p1.getX() + rand.nextGaussian() * 20, p1.getY() + rand.nextGaussian() * 20);
+          break;
+        default:
+          p2 = randomPoint();
+      }
+      checkLine(grid, creeps, new Line2D.Double(p1, p2));
+    }
+  }
+
+  private static void checkLine(CreepGrid grid, List<Creep> creeps, Line2D line) {
+    Set<Creep> found = Collections.newSetFromMap(new IdentityHashMap<Creep, Boolean>());
+    for (Creep c : grid.filter(line)) {
+      assertTrue("Creep found twice for " + describe(line), found.add(c));
+    }
+    for (Creep c : creeps) {
+      Point2D p = c.getPosition();
+      int halfWidth = c.getHalfWidth();
+      Rectangle2D bounds =
+          new Rectangle2D.Double(
+              p.getX() - halfWidth, p.getY() - halfWidth, 2 * halfWidth, 2 * halfWidth);
+      if (bounds.createIntersection(gridBounds).intersectsLine(line)) {
+        assertTrue("Creep at " + p + " missed by " + describe(line), found.contains(c));
+      }
+    }
+  }
+
+  private static void assertFindsNothing(Iterable<Creep> creeps) {
+    assertEquals(Collections.emptyList(), toList(creeps));
+  }
+
+  private static List<Creep> toList(Iterable<Creep> creeps) {
+    List<Creep> list = new ArrayList<>();
+    for (Creep c : creeps) {
+      list.add(c);
+    }
+    return list;
+  }
+
+  private static String describe(Line2D line) {
+    return line.getP1() + " -> " + line.getP2();
+  }
+
+  private Point randomMapPoint() {
+    Point2D p = randomPoint();
+    return new Point((int) p.getX(), (int) p.getY());
+  }
+
+  private Point2D randomPoint() {
+    return new Point2D.Double(randomCoordinate(), randomCoordinate());
+  }
+
+  private double randomCoordinate() {
+    return rand.nextDouble() * (Constants.MAP_WIDTH + 2 * offMap) - offMap;
+  }
+}
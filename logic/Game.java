@@ -20,7 +20,6 @@
 package logic;
 
 import creeps.Creep;
-import creeps.Pacman;
 import gui.ControlPanel;
 import gui.Drawable;
 import gui.GameMapPanel;
@@ -32,20 +31,16 @@ import java.awt.Point;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionListener;
-import java.math.BigDecimal;
-import java.math.BigInteger;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Comparator;
-import java.util.EnumMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.prefs.BackingStoreException;
 import javax.swing.JPanel;
-import towers.AbstractTower;
 import towers.Buildable;
 import towers.Tower;
 import towers.Tower.Attribute;
@@ -53,7 +48,13 @@ import util.Helper;
 
 public class Game {
 
-  private final Scene scene = new Scene();
+  // Player actions and ticks of the simulation are synchronized on this, so each action happens
+  // between two ticks, which is needed for them to be recorded and replayed exactly. It's kept
+  // separate as the simulation is replaced when the game is restarted.
+  private final Object simulationLock = new Object();
+  private Simulation simulation;
+  // Null if this game isn't being recorded
+  private ReplayRecorder recorder;
 
   private Clock clock;
 
@@ -64,25 +65,9 @@ public class Game {
   private Future<ControlPanel> controlPanelFuture;
   private ControlPanel controlPanel;
 
-  private final Map<Attribute, Integer> upgradesSoFar =
-      new EnumMap<Attribute, Integer>(Attribute.class);
-
-  private static final List<Comparator<Creep>> comparators = createComparators();
-
   // Last position inside GameMapPanel, should be null otherwise
   private Point lastMousePosition;
 
-  private int level;
-  private boolean levelInProgress;
-  private BigInteger money;
-  private int lives;
-  private int livesLostOnThisLevel;
-  private double interestRate;
-  private int endLevelUpgradesLeft;
-  private static final int upgradeLives = 5;
-  private static final int upgradeMoney = 1000;
-  private static final double upgradeInterest = 0.01;
-
   // These should only be set during a level using their set methods. Only one should be non null
   // at any particular time
   // The tower/ghost that is being built
@@ -130,8 +115,13 @@ public class Game {
 
   public void stopRunning() {
     clock.end();
-    scene.clear();
-    levelInProgress = false;
+    synchronized (simulationLock) {
+      if (recorder != null) {
+        recorder.close();
+        recorder = null;
+      }
+      simulation.clear();
+    }
   }
 
   /**
@@ -201,7 +191,9 @@ public class Game {
   }
 
   private GameMapPanel createGameMapPanel(GameMap gm) {
-    GameMapPanel gmp = new GameMapPanel(gm, options.isDebugTimes(), options.isDebugPath());
+    GameMapPanel gmp =
+        new GameMapPanel(
+            gm, options.isDebugTimes(), options.isDebugPath(), options.isActiveRendering());
     gmp.addMouseListener(
         new MouseAdapter() {
           @Override
@@ -224,91 +216,41 @@ public class Game {
     return gmp;
   }
 
-  private static List<Comparator<Creep>> createComparators() {
-    List<Comparator<Creep>> list = new ArrayList<Comparator<Creep>>();
-    list.add(new Creep.FirstComparator());
-    list.add(new Creep.LastComparator());
-    list.add(new Creep.FastestComparator());
-    list.add(new Creep.SlowestComparator());
-    list.add(new Creep.MostHPComparator());
-    list.add(new Creep.LeastHPComparator());
-    list.add(new Creep.DistanceComparator(new Point(), true));
-    list.add(new Creep.DistanceComparator(new Point(), false));
-    list.add(new Creep.RandomComparator());
-    return list;
-  }
-
-  private void endLevel() {
-    levelInProgress = false;
-    endLevelUpgradesLeft++;
-
-    BigInteger interest =
-        new BigDecimal(money).multiply(new BigDecimal(interestRate)).toBigInteger();
-
-    int levelEndBonus = Formulae.levelEndBonus(level);
-    int noEnemiesThroughBonus = 0;
-
-    String text = "Level " + level + " complete! ";
-    text += "Earned " + Helper.format(levelEndBonus) + " + ";
-    if (livesLostOnThisLevel == 0) {
-      noEnemiesThroughBonus = Formulae.noEnemiesThroughBonus(level);
-      text += Helper.format(noEnemiesThroughBonus) + " (perfect) + ";
+  private void endLevel(Simulation.LevelReport report) {
+    String text = "Level " + report.level + " complete! ";
+    text += "Earned " + Helper.format(report.levelEndBonus) + " + ";
+    if (report.noEnemiesThroughBonus > 0) {
+      text += Helper.format(report.noEnemiesThroughBonus) + " (perfect) + ";
     }
-    text += Helper.format(interest) + " (interest)";
+    text += Helper.format(report.interest) + " (interest)";
 
-    increaseMoney(interest.add(BigInteger.valueOf(levelEndBonus + noEnemiesThroughBonus)));
     updateAllButLevelStats();
 
     gameMapPanel.displayText(text);
     controlPanel.enableStartButton(true);
 
-    // Remove all the ghosts at the end of the level
-    scene.removeAllGhosts();
-
     // If the level is just finished it's a good time to run the garbage
     // collector rather than have it run during a level.
     System.gc();
   }
 
-  private boolean canBuild(Buildable b) {
-    return money.compareTo(BigInteger.valueOf(scene.getBuildCost(b))) >= 0;
-  }
-
-  private void build(Buildable b) {
-    if (b instanceof Tower) {
-      // Ensure new towers get the effect of all the bonus upgrades so far
-      for (Attribute a : upgradesSoFar.keySet()) {
-        for (int i = 0; i < upgradesSoFar.get(a); i++) {
-          ((Tower) b).upgrade(a, false);
+  private void setStartingStats() {
+    Long seed = options.getSeed();
+    synchronized (simulationLock) {
+      simulation = new Simulation(gameMap, seed != null ? seed : new Random().nextLong());
+      if (options.getRecordFile() != null) {
+        try {
+          recorder = new ReplayRecorder(options.getRecordFile(), simulation);
+        } catch (IOException e) {
+          // Carry on without recording
+          e.printStackTrace();
         }
       }
     }
-    decreaseMoney(scene.getBuildCost(b));
-    updateMoney();
-  }
-
-  private void increaseMoney(BigInteger amount) {
-    money = money.add(amount);
-    updateMoney();
-  }
-
-  private void decreaseMoney(long amount) {
-    money = money.subtract(BigInteger.valueOf(amount));
-  }
-
-  private void setStartingStats() {
-    level = 0;
-    scene.clear();
-    upgradesSoFar.clear();
     selectedTower = null;
     selectedBuilding = null;
     rolloverBuilding = null;
     rolloverTower = null;
-    money = BigInteger.valueOf(4000);
-    lives = 25;
-    livesLostOnThisLevel = 0;
-    interestRate = 0.03;
-    endLevelUpgradesLeft = 0;
     updateAll();
   }
 
@@ -327,19 +269,19 @@ public class Game {
   }
 
   private void updateMoney() {
-    controlPanel.updateMoney(money);
+    controlPanel.updateMoney(simulation.getMoney());
   }
 
   private void updateLives() {
-    controlPanel.updateLives(lives);
+    controlPanel.updateLives(simulation.getLives());
 
-    if (lives <= 0 && !clock.gameOver) {
+    if (simulation.isGameOver() && !clock.gameOver) {
       signalGameOver();
     }
   }
 
   private void updateLevelStats() {
-    int level = this.level;
+    int level = simulation.getLevel();
     if (level == 0) {
       level = 1;
     }
@@ -356,11 +298,11 @@ public class Game {
   }
 
   private void updateInterestLabel() {
-    controlPanel.updateInterest(Helper.format((interestRate * 100), 0) + "%");
+    controlPanel.updateInterest(Helper.format((simulation.getInterestRate() * 100), 0) + "%");
   }
 
   private void updateEndLevelUpgradesLabel() {
-    controlPanel.updateEndLevelUpgrades(endLevelUpgradesLeft);
+    controlPanel.updateEndLevelUpgrades(simulation.getEndLevelUpgradesLeft());
   }
 
   private void updateTowerStats() {
@@ -368,7 +310,7 @@ public class Game {
     if (rolloverBuilding != null || selectedBuilding != null) {
       // This needs to be first as rollover building takes precedence over selected tower
       Buildable b = rolloverBuilding != null ? rolloverBuilding : selectedBuilding;
-      controlPanel.updateCurrentCost(b.getName(), scene.getBuildCost(b));
+      controlPanel.updateCurrentCost(b.getName(), simulation.getScene().getBuildCost(b));
       controlPanel.setCurrentInfoToTower(null);
       if (b instanceof Tower) {
         t = (Tower) b;
@@ -405,10 +347,10 @@ public class Game {
       return;
     }
     Point p = e.getPoint();
-    Tower t = scene.getTowerContaining(p);
+    Tower t = simulation.getScene().getTowerContaining(p);
     if (t == null) {
       if (selectedBuilding == null) {
-        setSelectedCreep(scene.getCreepContaining(p));
+        setSelectedCreep(simulation.getScene().getCreepContaining(p));
       } else {
         tryToBuildTower(p);
       }
@@ -425,9 +367,9 @@ public class Game {
       setRolloverTower(null);
       setRolloverCreep(null);
     } else if (selectedTower == null && selectedBuilding == null) {
-      setRolloverTower(scene.getTowerContaining(p));
+      setRolloverTower(simulation.getScene().getTowerContaining(p));
       if (rolloverTower == null) {
-        setRolloverCreep(scene.getCreepContaining(p));
+        setRolloverCreep(simulation.getScene().getCreepContaining(p));
       }
     }
   }
@@ -436,34 +378,24 @@ public class Game {
     if (selectedBuilding == null) {
       return;
     }
-    if (isValidTowerPos(p)) {
-      if (canBuild(selectedBuilding)) {
-        Buildable b = selectedBuilding.constructNew(p);
-        build(b);
-        // Have to add after telling the control panel otherwise the price will be wrong
-        scene.addBuilding(b);
-        // If another tower can't be built, set the building tower to null
-        if (!canBuild(selectedBuilding)) {
-          setSelectedBuilding(null);
-        }
+    Buildable built;
+    synchronized (simulationLock) {
+      built = simulation.build(selectedBuilding, p);
+      if (built != null && recorder != null) {
+        recorder.build(selectedBuilding, p);
+      }
+    }
+    if (built != null) {
+      updateMoney();
+      // If another tower can't be built, set the building tower to null
+      if (!simulation.canAfford(selectedBuilding)) {
+        setSelectedBuilding(null);
       }
     }
   }
 
   private boolean isValidTowerPos(Point p) {
-    if (selectedBuilding == null || p == null) {
-      return false;
-    }
-    Buildable b = selectedBuilding.constructNew(p);
-    // Checks that the point isn't on the path
-    if (!b.canBuild(gameMap.getPath())) {
-      return false;
-    }
-    // Checks that the point doesn't clash with another tower
-    if (!scene.canBuild(b)) {
-      return false;
-    }
-    return true;
+    return simulation.isValidPosition(selectedBuilding, p);
   }
 
   private void signalGameOver() {
@@ -471,7 +403,7 @@ public class Game {
 
     int highScorePosition = 0;
     try {
-      highScorePosition = HighScores.addScore(gameMap.getDescription(), level);
+      highScorePosition = HighScores.addScore(gameMap.getDescription(), simulation.getLevel());
     } catch (BackingStoreException e) {
       // Print the error and continue if this happens
       e.printStackTrace();
@@ -484,12 +416,6 @@ public class Game {
     private final int[] fastModes = new int[] {1, 2, 10, 100};
     private int currentMode = 0;
 
-    private int creepsToAdd;
-    private long levelHP;
-
-    private int ticksBetweenAddCreep;
-    private int addCreepIn = 0;
-
     private final int timesLength = (int) (Constants.CLOCK_TICKS_PER_SECOND / 2);
     private int timesPos = 0;
     // In each of these the last position is used to store the last time
@@ -510,10 +436,6 @@ public class Game {
 
     private boolean gameOver = false;
 
-    // I know I shouldn't really use a double, but it should be fine.
-    // This is used so fractional amounts can be saved between ticks.
-    private double moneyEarned = 0;
-
     public Clock() {
       super("Pac Defence Clock");
       //         System.out.println("Using " + numCallables + " callables.");
@@ -568,10 +490,21 @@ public class Game {
     private void doTicks() {
       int ticksToDo = fastModes[currentMode];
       for (int i = 0; i < ticksToDo; i++) {
-        if (levelInProgress && scene.getNumCreeps() == 0 && creepsToAdd <= 0) {
-          endLevel();
+        Scene.DebugTimes debugTimes = null;
+        if (options.isDebugTimes()) {
+          debugTimes = simulation.getScene().new DebugTimes();
+        }
+        Simulation.LevelReport report = null;
+        synchronized (simulationLock) {
+          if (simulation.isLevelComplete()) {
+            report = simulation.endLevel();
+          }
+          simulation.tick(debugTimes);
         }
-        tickScene();
+        if (report != null) {
+          endLevel(report);
+        }
+        updateAfterTick(debugTimes);
       }
       // Catches any new creeps that may have moved under the cursor
       // Save the mouse position from mouseMotionListeners rather than use getMousePosition as it
@@ -580,13 +513,7 @@ public class Game {
       updateTowerStats();
     }
 
-    private void tickScene() {
-      Scene.DebugTimes debugTimes = null;
-      if (options.isDebugTimes()) {
-        debugTimes = scene.new DebugTimes();
-      }
-      Scene.TickResult result = scene.tick(debugTimes, levelInProgress, getNewCreep());
-
+    private void updateAfterTick(Scene.DebugTimes debugTimes) {
       if (options.isDebugTimes()) {
         processCreepsTimes[timesLength] = debugTimes.processCreepsTime / 1_000_000;
         processBulletsTimes[timesLength] = debugTimes.processBulletsTime / 1_000_000;
@@ -599,31 +526,11 @@ public class Game {
       }
 
       // Update the number of lives
-      controlPanel.updateNumberLeft(creepsToAdd + scene.getNumCreeps());
-      livesLostOnThisLevel += result.livesLost;
-      lives -= result.livesLost;
+      controlPanel.updateNumberLeft(simulation.getNumCreepsLeft());
       updateLives();
 
       // Update the amount of money
-      moneyEarned += result.moneyEarned;
-      increaseMoney(BigInteger.valueOf((long) moneyEarned));
-      // Fractional amounts of money are kept until the next tick
-      moneyEarned -= (long) moneyEarned;
-    }
-
-    private Creep getNewCreep() {
-      Creep creep = null;
-      if (creepsToAdd > 0) {
-        if (addCreepIn < 1) { // If the time has got to zero, add a creep
-          creep = new Pacman(level, levelHP, Collections.unmodifiableList(gameMap.getPathPoints()));
-          // Adds a creep in somewhere between 0 and twice the designated time
-          addCreepIn = (int) (Math.random() * (ticksBetweenAddCreep * 2 + 1));
-          creepsToAdd--;
-        } else { // Otherwise decrement the time until the next creep will be added
-          addCreepIn--;
-        }
-      }
-      return creep;
+      updateMoney();
     }
 
     private long draw() {
@@ -637,12 +544,12 @@ public class Game {
                   processBulletsTime,
                   processTowersTime,
                   drawTime,
-                  scene.getNumBullets()));
+                  simulation.getScene().getNumBullets()));
       return drawingBeginTime;
     }
 
     private List<Drawable> getDrawables() {
-      List<Drawable> drawables = new ArrayList<>(scene.getDrawables());
+      List<Drawable> drawables = new ArrayList<>(simulation.getScene().getDrawables());
       // Displays the tower on the cursor that could be built
       drawables.add(
           new Drawable() {
@@ -691,15 +598,16 @@ public class Game {
   public class ControlEventProcessor {
 
     public void processStartButtonPressed() {
-      if (!levelInProgress) {
+      boolean started;
+      synchronized (simulationLock) {
+        started = simulation.startLevel();
+        if (started && recorder != null) {
+          recorder.startLevel();
+        }
+      }
+      if (started) {
         controlPanel.enableStartButton(false);
-        level++;
         gameMapPanel.removeText();
-        livesLostOnThisLevel = 0;
-        levelInProgress = true;
-        clock.creepsToAdd = Formulae.numCreeps(level);
-        clock.levelHP = Formulae.hp(level);
-        clock.ticksBetweenAddCreep = Formulae.ticksBetweenAddCreep(level);
         updateLevelStats();
       }
     }
@@ -707,19 +615,10 @@ public class Game {
     public void processUpgradeButtonPressed(Attribute a, boolean ctrl) {
       int numTimes = ctrl ? 5 : 1;
       Tower toAffect = towerToAffect();
-      for (int i = 0; i < numTimes; i++) {
-        if (toAffect == null) {
-          long cost = scene.getUpgradeAllTowersCost(a);
-          if (money.compareTo(BigInteger.valueOf(cost)) >= 0) {
-            decreaseMoney(cost);
-            scene.upgradeAllTowers(a, true);
-          }
-        } else {
-          long cost = Formulae.upgradeCost(toAffect.getAttributeLevel(a));
-          if (money.compareTo(BigInteger.valueOf(cost)) >= 0) {
-            decreaseMoney(cost);
-            toAffect.upgrade(a, true);
-          }
+      synchronized (simulationLock) {
+        simulation.upgrade(toAffect, a, numTimes);
+        if (recorder != null) {
+          recorder.upgrade(toAffect, a, numTimes);
         }
       }
       updateTowerStats();
@@ -729,13 +628,10 @@ public class Game {
       if (on) {
         String description = a.toString() + " Upgrade";
         Tower toAffect = towerToAffect();
-        long cost = 0;
         if (toAffect == null) {
           description += " (all)";
-          cost = scene.getUpgradeAllTowersCost(a);
-        } else {
-          cost = Formulae.upgradeCost(toAffect.getAttributeLevel(a));
         }
+        long cost = simulation.getUpgradeCost(toAffect, a);
         controlPanel.updateCurrentCost(description, cost);
       } else {
         controlPanel.clearCurrentCost();
@@ -743,7 +639,7 @@ public class Game {
     }
 
     public void processTowerButtonPressed(Buildable b) {
-      if (canBuild(b)) {
+      if (simulation.canAfford(b)) {
         setSelectedTower(null);
         setSelectedBuilding(b);
         updateTowerStats();
@@ -763,18 +659,16 @@ public class Game {
 
     public void processEndLevelUpgradeButtonPress(
         boolean livesUpgrade, boolean interestUpgrade, boolean moneyUpgrade, Attribute a) {
-      if (endLevelUpgradesLeft > 0) {
-        endLevelUpgradesLeft--;
+      boolean upgraded;
+      synchronized (simulationLock) {
+        upgraded = simulation.endLevelUpgrade(livesUpgrade, interestUpgrade, moneyUpgrade, a);
+        if (upgraded && recorder != null) {
+          recorder.endLevelUpgrade(livesUpgrade, interestUpgrade, moneyUpgrade, a);
+        }
+      }
+      if (upgraded) {
         if (a != null) {
           controlPanel.increaseTowersAttribute(a);
-          upgradesSoFar.put(a, upgradesSoFar.containsKey(a) ? upgradesSoFar.get(a) + 1 : 1);
-          scene.upgradeAllTowers(a, false);
-        } else if (livesUpgrade) {
-          lives += upgradeLives;
-        } else if (interestUpgrade) {
-          interestRate += upgradeInterest;
-        } else if (moneyUpgrade) {
-          increaseMoney(BigInteger.valueOf(upgradeMoney));
         }
         updateAllButLevelStats();
       }
@@ -792,11 +686,11 @@ public class Game {
         if (a != null) {
           description = a.toString() + " Upgrade (all)";
         } else if (livesUpgrade) {
-          description = upgradeLives + " bonus lives";
+          description = Simulation.upgradeLives + " bonus lives";
         } else if (interestUpgrade) {
-          description = "+" + Helper.format(upgradeInterest * 100, 0) + "% interest rate";
+          description = "+" + Helper.format(Simulation.upgradeInterest * 100, 0) + "% interest rate";
         } else if (moneyUpgrade) {
-          description = upgradeMoney + " bonus money";
+          description = Simulation.upgradeMoney + " bonus money";
         }
         controlPanel.updateCurrentCost(description, cost);
       } else {
@@ -807,9 +701,13 @@ public class Game {
     public void processSellButtonPressed() {
       Tower toAffect = towerToAffect();
       if (toAffect != null) {
-        increaseMoney(BigInteger.valueOf(scene.getTowerSellValue(toAffect)));
-        toAffect.sell();
-        scene.removeTower(toAffect);
+        synchronized (simulationLock) {
+          simulation.sell(toAffect);
+          if (recorder != null) {
+            recorder.sell(toAffect);
+          }
+        }
+        updateMoney();
         setSelectedTower(null);
       }
     }
@@ -818,7 +716,7 @@ public class Game {
       Tower toAffect = towerToAffect();
       if (toAffect != null && on) {
         controlPanel.updateCurrentCost(
-            "Sell " + toAffect.getName(), scene.getTowerSellValue(toAffect));
+            "Sell " + toAffect.getName(), simulation.getScene().getTowerSellValue(toAffect));
       } else {
         controlPanel.clearCurrentCost();
       }
@@ -827,6 +725,7 @@ public class Game {
     public String processTargetButtonPressed(boolean direction) {
       Tower currentTower = rolloverTower != null ? rolloverTower : selectedTower;
       Comparator<Creep> currentComparator = currentTower.getCreepComparator();
+      List<Comparator<Creep>> comparators = Simulation.comparators;
       int nextIndex = comparators.indexOf(currentComparator) + (direction ? 1 : -1);
       if (nextIndex >= comparators.size()) {
         nextIndex -= comparators.size();
@@ -834,7 +733,12 @@ public class Game {
         nextIndex += comparators.size();
       }
       Comparator<Creep> c = comparators.get(nextIndex);
-      selectedTower.setCreepComparator(c);
+      synchronized (simulationLock) {
+        simulation.setCreepComparator(selectedTower, c);
+        if (recorder != null) {
+          recorder.setCreepComparator(selectedTower, c);
+        }
+      }
       return c.toString();
     }
 
@@ -853,9 +757,6 @@ public class Game {
       controlPanel.restart();
       setStartingStats();
       clock = new Clock();
-      // Flush the cache here, so only the directions that towers actually use are put into it
-      // and the extra time for rotating images is fine at the beginning of the level
-      AbstractTower.flushImageCache();
     }
 
     private Tower towerToAffect() {
@@ -54,7 +54,9 @@ public class MyExecutor {
   }
 
   public static boolean singleThreaded() {
-    return numThreads == 1;
+    // Without the executor, such as when running without the GUI, everything has to be on one
+    // thread
+    return numThreads == 1 || executorService == null;
   }
 
   public static int getNumThreads() {
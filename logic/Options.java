@@ -19,14 +19,26 @@
 
 package logic;
 
+import java.io.File;
+
 public class Options {
 
   private final boolean debugTimes;
   private final boolean debugPath;
+  // Null if each game should be given a random seed
+  private final Long seed;
+  // Null if games shouldn't be recorded
+  private final File recordFile;
+  // Whether the clock draws the map straight to the screen, rather than asking Swing to
+  private final boolean activeRendering;
 
-  public Options(boolean debugTimes, boolean debugPath) {
+  public Options(
+      boolean debugTimes, boolean debugPath, Long seed, File recordFile, boolean activeRendering) {
     this.debugTimes = debugTimes;
     this.debugPath = debugPath;
+    this.seed = seed;
+    this.recordFile = recordFile;
+    this.activeRendering = activeRendering;
   }
 
   public boolean isDebugTimes() {
@@ -36,4 +48,16 @@ public class Options {
   public boolean isDebugPath() {
     return debugPath;
   }
+
+  public Long getSeed() {
+    return seed;
+  }
+
+  public File getRecordFile() {
+    return recordFile;
+  }
+
+  public boolean isActiveRendering() {
+    return activeRendering;
+  }
 }
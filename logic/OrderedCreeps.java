@@ -0,0 +1,135 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import creeps.Creep;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * The creeps in a scene, kept in the order given by a comparator.
+ *
+ * <p>The creeps only move a little each tick, so their order hardly changes. Rather than sorting
+ * them again every tick, {@link #repair} fixes the order with an insertion sort, which takes about
+ * as long as going through them once when only a few are out of place.
+ *
+ * <p>Changes should be made while synchronized on this, so they don't clash with {@link #copy}
+ * from the GUI.
+ */
+class OrderedCreeps {
+
+  private static final int initialCapacity = 64;
+  // If the insertion sort moves creeps more than this many places per creep on average, the order
+  // is too far out for it, so they're sorted normally instead
+  private static final int maxShiftsPerCreep = 8;
+
+  private final Comparator<Creep> comparator;
+  private Creep[] creeps = new Creep[initialCapacity];
+  private int size = 0;
+  private final List<Creep> view = new View();
+
+  OrderedCreeps(Comparator<Creep> comparator) {
+    this.comparator = comparator;
+  }
+
+  /** Adds the creep at the end, it's put in its place by the next {@link #repair}. */
+  synchronized void add(Creep c) {
+    if (size == creeps.length) {
+      creeps = Arrays.copyOf(creeps, size * 2);
+    }
+    creeps[size++] = c;
+  }
+
+  synchronized Creep get(int i) {
+    return creeps[i];
+  }
+
+  synchronized void remove(int i) {
+    System.arraycopy(creeps, i + 1, creeps, i, size - i - 1);
+    creeps[--size] = null;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized void clear() {
+    Arrays.fill(creeps, 0, size, null);
+    size = 0;
+  }
+
+  /** Puts the creeps back in order after they've moved. */
+  synchronized void repair() {
+    long maxShifts = (long) maxShiftsPerCreep * size;
+    long shifts = 0;
+    for (int i = 1; i < size; i++) {
+      Creep c = creeps[i];
+      int j = i - 1;
+      if (comparator.compare(creeps[j], c) <= 0) {
+        continue;
+      }
+      // Move the creeps before this that should come after it up one, keeping equal creeps in
+      // the order they were in
+      do {
+        creeps[j + 1] = creeps[j];
+        j--;
+      } while (j >= 0 && comparator.compare(creeps[j], c) > 0);
+      creeps[j + 1] = c;
+      shifts += i - j - 1;
+      if (shifts > maxShifts) {
+        Arrays.sort(creeps, 0, size, comparator);
+        return;
+      }
+    }
+  }
+
+  /**
+   * A list of the creeps in order, which doesn't copy them so is only valid until they next
+   * change.
+   */
+  List<Creep> view() {
+    return view;
+  }
+
+  /** A copy of the creeps, in order. */
+  synchronized List<Creep> copy() {
+    return new ArrayList<Creep>(Arrays.asList(creeps).subList(0, size));
+  }
+
+  private class View extends AbstractList<Creep> implements RandomAccess {
+
+    @Override
+    public Creep get(int index) {
+      if (index >= size) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+      }
+      return creeps[index];
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+}
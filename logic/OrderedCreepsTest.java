@@ -0,0 +1,140 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import creeps.Creep;
+import creeps.CreepStore;
+import creeps.Pacman;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Test;
+
+public class OrderedCreepsTest {
+
+  private final Random rand = new Random(7);
+  private final CreepStore store = new CreepStore();
+  private final PathTable path = new PathTable(Arrays.asList(new Point(0, 0), new Point(1, 0)));
+  // What the creeps are ordered by, which the tests change to move them out of order
+  private final Map<Creep, Integer> keys = new IdentityHashMap<>();
+  private final Comparator<Creep> byKey = (c1, c2) -> Integer.compare(keys.get(c1), keys.get(c2));
+  private final OrderedCreeps ordered = new OrderedCreeps(byKey);
+  // The creeps in the order they were last in, with new ones at the end, which ties should stay in
+  private List<Creep> order = new ArrayList<>();
+
+  @Test
+  public void testRepairMovesAFewCreeps() {
+    addCreeps(200);
+    ordered.repair();
+    assertInOrder();
+    // Only a few move, and not far, so the insertion sort handles them
+    for (int i = 0; i < 10; i++) {
+      Creep c = order.get(rand.nextInt(order.size()));
+      keys.put(c, keys.get(c) + rand.nextInt(21) - 10);
+    }
+    ordered.repair();
+    assertInOrder();
+  }
+
+  @Test
+  public void testRepairPutsNewCreepsInPlace() {
+    addCreeps(100);
+    ordered.repair();
+    addCreeps(5);
+    ordered.repair();
+    assertInOrder();
+  }
+
+  @Test
+  public void testRepairSortsCreepsThatAreFarOutOfOrder() {
+    addCreeps(200);
+    ordered.repair();
+    assertInOrder();
+    // Reversing them needs far more shifts than the insertion sort is allowed, so part way through
+    // it gives up and sorts them all instead
+    for (Creep c : order) {
+      keys.put(c, -keys.get(c));
+    }
+    ordered.repair();
+    assertInOrder();
+  }
+
+  @Test
+  public void testRepairSortsCreepsAfterPartlyInsertingThem() {
+    addCreeps(200);
+    ordered.repair();
+    assertInOrder();
+    // The first few are only a little out, so are inserted before the rest force a sort
+    for (int i = 0; i < order.size(); i++) {
+      Creep c = order.get(i);
+      keys.put(c, i < 20 ? keys.get(c) + rand.nextInt(5) : rand.nextInt(50));
+    }
+    ordered.repair();
+    assertInOrder();
+  }
+
+  @Test
+  public void testRemoveKeepsOrder() {
+    addCreeps(50);
+    ordered.repair();
+    assertInOrder();
+    for (int i = 0; i < 20; i++) {
+      int index = rand.nextInt(ordered.size());
+      order.remove(ordered.get(index));
+      ordered.remove(index);
+    }
+    assertInOrder();
+  }
+
+  /** Adds creeps with random keys, with plenty of ties. */
+  private void addCreeps(int numCreeps) {
+    for (int i = 0; i < numCreeps; i++) {
+      Creep c = Pacman.create(1, 1, path, store, rand);
+      keys.put(c, rand.nextInt(50));
+      order.add(c);
+      ordered.add(c);
+    }
+  }
+
+  /** Checks the creeps are in the order a stable sort of their previous order would give. */
+  private void assertInOrder() {
+    List<Creep> expected = new ArrayList<>(order);
+    Collections.sort(expected, byKey);
+    assertEquals(expected.size(), ordered.size());
+    List<Creep> view = ordered.view();
+    List<Creep> copy = ordered.copy();
+    for (int i = 0; i < expected.size(); i++) {
+      assertSame(expected.get(i), ordered.get(i));
+      assertSame(expected.get(i), view.get(i));
+      assertSame(expected.get(i), copy.get(i));
+    }
+    order = expected;
+  }
+}
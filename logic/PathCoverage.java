@@ -0,0 +1,128 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+
+/**
+ * The parts of the path within a circle, e.g. a tower's range, as intervals of the distance along
+ * the path from its first point. As creeps only move along the path, whether a creep could be in
+ * range is then just whether its distance along the path is in one of these.
+ *
+ * <p>Creeps start and finish a little off the ends of the path, so the path is taken to carry on
+ * straight past its ends for {@link #endExtension}.
+ */
+public final class PathCoverage {
+
+  // More than any creep goes past the ends of the path
+  static final double endExtension = 100;
+
+  private static final PathCoverage empty = new PathCoverage(new double[0]);
+
+  // Pairs of from and to, in order and not overlapping
+  private final double[] bounds;
+
+  private PathCoverage(double[] bounds) {
+    this.bounds = bounds;
+  }
+
+  public static PathCoverage of(PathTable path, Point2D centre, double radius) {
+    if (radius <= 0) {
+      return empty;
+    }
+    int numLines = path.getNumLines();
+    double[] bounds = new double[2 * (numLines + 2)];
+    int numBounds = 0;
+    Point2D p1 = new Point2D.Double();
+    Point2D p2 = new Point2D.Double();
+    // Go from the path extended back before the first line to it extended on past the last
+    for (int piece = -1; piece <= numLines; piece++) {
+      int line = Math.max(0, Math.min(numLines - 1, piece));
+      double start, end;
+      if (piece < 0) {
+        start = -endExtension;
+        end = 0;
+      } else if (piece == numLines) {
+        start = path.getLength();
+        end = start + endExtension;
+      } else {
+        start = path.getLineStart(line);
+        end = path.getLineEnd(line);
+      }
+      double length = end - start;
+      if (length <= 0) {
+        continue;
+      }
+      path.setPoint(p1, start, line);
+      path.setPoint(p2, end, line);
+      // Solve |p1 + t * u - centre| = radius for t, where u is the unit vector along the line
+      double ux = (p2.getX() - p1.getX()) / length;
+      double uy = (p2.getY() - p1.getY()) / length;
+      double fx = p1.getX() - centre.getX();
+      double fy = p1.getY() - centre.getY();
+      double b = fx * ux + fy * uy;
+      double discriminant = b * b - (fx * fx + fy * fy - radius * radius);
+      if (discriminant > 0) {
+        double root = Math.sqrt(discriminant);
+        double from = Math.max(-b - root, 0);
+        double to = Math.min(-b + root, length);
+        if (from <= to) {
+          from += start;
+          to += start;
+          if (numBounds > 0 && from <= bounds[numBounds - 1]) {
+            // Carries on from the last line, so join them up
+            bounds[numBounds - 1] = Math.max(bounds[numBounds - 1], to);
+          } else {
+            bounds[numBounds++] = from;
+            bounds[numBounds++] = to;
+          }
+        }
+      }
+    }
+    return numBounds == 0 ? empty : new PathCoverage(Arrays.copyOf(bounds, numBounds));
+  }
+
+  /** True if no part of the path is within the circle. */
+  public boolean isEmpty() {
+    return bounds.length == 0;
+  }
+
+  public int getNumIntervals() {
+    return bounds.length / 2;
+  }
+
+  public double getFrom(int interval) {
+    return bounds[2 * interval];
+  }
+
+  public double getTo(int interval) {
+    return bounds[2 * interval + 1];
+  }
+
+  public boolean contains(double distance) {
+    for (int i = 0; i < bounds.length; i += 2) {
+      if (distance >= bounds[i] && distance <= bounds[i + 1]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import org.junit.Test;
+
+public class PathCoverageTest {
+
+  private static final PathTable path =
+      new PathTable(Arrays.asList(new Point(0, 0), new Point(100, 0), new Point(100, 100)));
+
+  @Test
+  public void testIntervalOnOneLine() {
+    assertCovers(PathCoverage.of(path, new Point2D.Double(50, 0), 10), 40, 60);
+    assertCovers(PathCoverage.of(path, new Point2D.Double(100, 50), 10), 140, 160);
+    // Off to the side of the line
+    assertCovers(PathCoverage.of(path, new Point2D.Double(50, 6), 10), 42, 58);
+  }
+
+  @Test
+  public void testCornerIsJoinedUp() {
+    assertCovers(PathCoverage.of(path, new Point2D.Double(100, 0), 10), 90, 110);
+  }
+
+  @Test
+  public void testSeparateIntervals() {
+    PathCoverage coverage = PathCoverage.of(path, new Point2D.Double(0, 100), 100.5);
+    assertEquals(2, coverage.getNumIntervals());
+    assertTrue(coverage.contains(0));
+    assertFalse(coverage.contains(100));
+    assertTrue(coverage.contains(200));
+  }
+
+  @Test
+  public void testPathCarriesOnPastItsEnds() {
+    assertCovers(PathCoverage.of(path, new Point2D.Double(-50, 0), 10), -60, -40);
+    assertCovers(PathCoverage.of(path, new Point2D.Double(100, 150), 10), 240, 260);
+  }
+
+  @Test
+  public void testOutOfReach() {
+    assertTrue(PathCoverage.of(path, new Point2D.Double(50, 50), 30).isEmpty());
+  }
+
+  private static void assertCovers(PathCoverage coverage, double from, double to) {
+    assertEquals(1, coverage.getNumIntervals());
+    assertEquals(from, coverage.getFrom(0), 1e-9);
+    assertEquals(to, coverage.getTo(0), 1e-9);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.List;
+import util.Vector2D;
+
+/**
+ * The path creeps follow, with the distance along it to each point and the direction of each line
+ * worked out once for the map, so any point on the path can be found from just its distance along
+ * the path.
+ *
+ * <p>Distances are from the first point. The path carries on straight before its first point and
+ * after its last, so negative distances and those past the end are fine, as creeps start and finish
+ * off screen.
+ */
+public final class PathTable {
+
+  private final double[] xs;
+  private final double[] ys;
+  // The distance along the path to each point
+  private final double[] distances;
+  // The unit vector along each line, from one point to the next
+  private final double[] dirXs;
+  private final double[] dirYs;
+  // The angle of each line, as used to rotate images
+  private final double[] angles;
+
+  public PathTable(List<Point> pathPoints) {
+    if (pathPoints.size() < 2) {
+      throw new IllegalArgumentException("A path needs at least two points");
+    }
+    int numPoints = pathPoints.size();
+    xs = new double[numPoints];
+    ys = new double[numPoints];
+    distances = new double[numPoints];
+    dirXs = new double[numPoints - 1];
+    dirYs = new double[numPoints - 1];
+    angles = new double[numPoints - 1];
+    for (int i = 0; i < numPoints; i++) {
+      xs[i] = pathPoints.get(i).getX();
+      ys[i] = pathPoints.get(i).getY();
+      if (i > 0) {
+        double dx = xs[i] - xs[i - 1];
+        double dy = ys[i] - ys[i - 1];
+        double length = Math.sqrt(dx * dx + dy * dy);
+        distances[i] = distances[i - 1] + length;
+        dirXs[i - 1] = length == 0 ? 0 : dx / length;
+        dirYs[i - 1] = length == 0 ? 0 : dy / length;
+        // Invert y as it goes down as it increases, rather than up as in a conventional
+        // coordinate system
+        angles[i - 1] = Vector2D.angle(dx, -dy);
+      }
+    }
+  }
+
+  /** The distance along the path from the first point to the last. */
+  public double getLength() {
+    return distances[distances.length - 1];
+  }
+
+  public int getNumLines() {
+    return dirXs.length;
+  }
+
+  /** The distance along the path to the start of the line. */
+  public double getLineStart(int line) {
+    return distances[line];
+  }
+
+  /** The distance along the path to the end of the line. */
+  public double getLineEnd(int line) {
+    return distances[line + 1];
+  }
+
+  /**
+   * The line that distance is on, looking forwards from the line from. Distances before the start
+   * are on the first line and those after the end are on the last, as the path carries on straight.
+   */
+  public int lineAt(double distance, int from) {
+    int line = from;
+    while (line < dirXs.length - 1 && distance >= distances[line + 1]) {
+      line++;
+    }
+    return line;
+  }
+
+  /** The angle of the line, as used to rotate images. */
+  public double getAngle(int line) {
+    return angles[line];
+  }
+
+  /** Sets p to the point at distance along the path, which must be on line. */
+  public void setPoint(Point2D p, double distance, int line) {
+    p.setLocation(getX(distance, line), getY(distance, line));
+  }
+
+  /** The x coordinate of the point at distance along the path, which must be on line. */
+  public double getX(double distance, int line) {
+    return xs[line] + (distance - distances[line]) * dirXs[line];
+  }
+
+  /** The y coordinate of the point at distance along the path, which must be on line. */
+  public double getY(double distance, int line) {
+    return ys[line] + (distance - distances[line]) * dirYs[line];
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import towers.Buildable;
+import towers.Tower;
+import util.Circle;
+
+/**
+ * Where buildings with one footprint can have their centres on a map, worked out for every pixel,
+ * so checking a position is just a lookup. The GUI does this every frame to draw the building
+ * under the mouse.
+ *
+ * <p>Where the path allows it is worked out a square tile at a time, the first time a pixel in the
+ * tile is looked up, as doing the whole map at once takes a noticeable time on maps with detailed
+ * paths. Where towers would clash with the towers already built is kept up to date by {@link
+ * #towerAdded} and {@link #towerRemoved}.
+ */
+public class PlacementRaster {
+
+  private static final int width = Constants.MAP_WIDTH;
+  private static final int height = Constants.MAP_HEIGHT;
+  private static final int tileWidth = 20;
+  private static final int tilesAcross = (width + tileWidth - 1) / tileWidth;
+  private static final int tilesDown = (height + tileWidth - 1) / tileWidth;
+
+  private final Buildable type;
+  private final List<Polygon> path;
+  // Set for the tiles that have been done for the path
+  private final BitSet tilesDone = new BitSet(tilesAcross * tilesDown);
+
+  // Set for the pixels the path stops a building being built at
+  private final BitSet blockedByPath = new BitSet(width * height);
+  // Set for the pixels a tower built at would clash with another tower, or null if the buildings
+  // aren't towers, as only towers clash
+  private final BitSet blockedByTowers;
+  // The radius of the buildings' bounds, if they're towers
+  private final double radius;
+  // The largest radius of the towers that have been added
+  private double maxTowerRadius = 0;
+
+  /** @param type a building with the footprint, where it is doesn't matter */
+  public PlacementRaster(Buildable type, List<Polygon> path, Collection<Tower> towers) {
+    this.type = type;
+    this.path = path;
+    if (type instanceof Tower) {
+      radius = radius((Tower) type);
+      blockedByTowers = new BitSet(width * height);
+      for (Tower t : towers) {
+        addClashes(t);
+      }
+    } else {
+      radius = 0;
+      blockedByTowers = null;
+    }
+  }
+
+  /** Whether this has worked out if a building can be built at p, i.e. if p is on the map. */
+  public static boolean covers(Point p) {
+    return p.x >= 0 && p.y >= 0 && p.x < width && p.y < height;
+  }
+
+  /** Whether a building can be built with its centre at p, which must be covered by this. */
+  public synchronized boolean canBuild(Point p) {
+    int tile = (p.y / tileWidth) * tilesAcross + p.x / tileWidth;
+    if (!tilesDone.get(tile)) {
+      doTile(tile);
+    }
+    int index = p.y * width + p.x;
+    return !blockedByPath.get(index) && (blockedByTowers == null || !blockedByTowers.get(index));
+  }
+
+  public synchronized void towerAdded(Tower t) {
+    if (blockedByTowers != null) {
+      addClashes(t);
+    }
+  }
+
+  /** @param towers the towers that are left, which may also clash where t did */
+  public synchronized void towerRemoved(Tower t, TowerGrid towers) {
+    if (blockedByTowers != null) {
+      double towerRadius = radius(t);
+      setClashes(t.getCentre(), towerRadius, false);
+      // Put back the clashes of the towers whose clashes overlap the removed one's
+      for (Tower other : towers.near(t.getCentre(), towerRadius + maxTowerRadius + 2 * radius)) {
+        setClashes(other.getCentre(), radius(other), true);
+      }
+    }
+  }
+
+  private void addClashes(Tower t) {
+    double towerRadius = radius(t);
+    maxTowerRadius = Math.max(maxTowerRadius, towerRadius);
+    setClashes(t.getCentre(), towerRadius, true);
+  }
+
+  private void doTile(int tile) {
+    int tileX = (tile % tilesAcross) * tileWidth;
+    int tileY = (tile / tilesAcross) * tileWidth;
+    // Only the polygons near the tile matter, which on maps with lots of them is far fewer
+    int reach = type.getFootprint().getHalfWidth() + 1;
+    Rectangle near =
+        new Rectangle(tileX - reach, tileY - reach, tileWidth + 2 * reach, tileWidth + 2 * reach);
+    List<Polygon> nearTile = new ArrayList<Polygon>();
+    for (Polygon p : path) {
+      if (p.getBounds().intersects(near)) {
+        nearTile.add(p);
+      }
+    }
+    for (int y = tileY; y < Math.min(height, tileY + tileWidth); y++) {
+      for (int x = tileX; x < Math.min(width, tileX + tileWidth); x++) {
+        if (!type.canBuildAt(nearTile, x, y)) {
+          blockedByPath.set(y * width + x);
+        }
+      }
+    }
+    tilesDone.set(tile);
+  }
+
+  /** Sets or clears the pixels where a building would clash with a tower at centre. */
+  private void setClashes(Point centre, double towerRadius, boolean clashes) {
+    // The same as AbstractTower.clashesWith
+    double distance = towerRadius + radius;
+    int minX = Math.max(0, (int) Math.floor(centre.x - distance));
+    int maxX = Math.min(width - 1, (int) Math.ceil(centre.x + distance));
+    int minY = Math.max(0, (int) Math.floor(centre.y - distance));
+    int maxY = Math.min(height - 1, (int) Math.ceil(centre.y + distance));
+    for (int y = minY; y <= maxY; y++) {
+      for (int x = minX; x <= maxX; x++) {
+        if (Point2D.distance(centre.x, centre.y, x, y) < distance) {
+          blockedByTowers.set(y * width + x, clashes);
+        }
+      }
+    }
+  }
+
+  private static double radius(Tower t) {
+    Shape bounds = t.getBounds();
+    if (bounds instanceof Circle) {
+      return ((Circle) bounds).getRadius();
+    }
+    // Treat anything else as the circle around it, which clashes in a few more places than it
+    // should
+    Rectangle2D r = bounds.getBounds2D();
+    return Math.hypot(r.getWidth(), r.getHeight()) / 2;
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+
+import gui.maps.MapParser;
+import gui.maps.MapParser.GameMap;
+import java.awt.Point;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+import towers.Buildable;
+import towers.Ghost;
+import towers.Tower;
+import towers.impl.BasicTower;
+import util.Circle;
+
+public class PlacementRasterTest {
+
+  @Test
+  public void testSameAsBuildingThere() {
+    GameMap map = MapParser.parse("curvyHard.xml");
+    List<Tower> towers = new ArrayList<Tower>();
+    towers.add(new BasicTower(new Point(200, 200)));
+    towers.add(new BasicTower(new Point(400, 300)));
+    for (Buildable type : new Buildable[] {new BasicTower(new Point()), new Ghost(new Point())}) {
+      PlacementRaster raster = new PlacementRaster(type, map.getPath(), towers);
+      for (int x = 0; x < Constants.MAP_WIDTH; x += 7) {
+        for (int y = 0; y < Constants.MAP_HEIGHT; y += 7) {
+          Point p = new Point(x, y);
+          Buildable b = type.constructNew(p);
+          boolean expected;
+          if (b instanceof Tower) {
+            expected = !intersectsAny((Circle) ((Tower) b).getBounds(), map.getPath());
+            for (Tower t : towers) {
+              expected &= !((Tower) b).clashesWith(t);
+            }
+          } else {
+            int halfWidth = b.getFootprint().getHalfWidth();
+            Rectangle bounds =
+                new Rectangle(x - halfWidth, y - halfWidth, 2 * halfWidth, 2 * halfWidth);
+            expected = anyContains(map.getPath(), bounds);
+          }
+          assertEquals(type + " at " + p, expected, raster.canBuild(p));
+        }
+      }
+    }
+  }
+
+  // How towers were checked against the path before canBuildAt
+  private static boolean intersectsAny(Circle bounds, List<Polygon> path) {
+    for (Polygon p : path) {
+      if (bounds.intersects(p)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // How ghosts were checked against the path before canBuildAt
+  private static boolean anyContains(List<Polygon> path, Rectangle bounds) {
+    for (Polygon p : path) {
+      if (p.contains(bounds)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
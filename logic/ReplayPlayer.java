@@ -0,0 +1,192 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import gui.maps.MapParser;
+import java.awt.Point;
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import towers.Buildable;
+import towers.BuildableTypes;
+import towers.Tower;
+import towers.Tower.Attribute;
+
+/**
+ * Plays a game recorded by {@link ReplayRecorder} on a {@link Simulation}, without a GUI and as
+ * fast as possible.
+ *
+ * <p>If the recording didn't finish properly (e.g. the game crashed) the level in progress at the
+ * end of the recording is played out.
+ */
+public class ReplayPlayer {
+
+  private final DataInputStream in;
+  private final Simulation simulation;
+  // The towers built so far, by their centres as that's how they're recorded
+  private final Map<Point, Tower> towers = new HashMap<Point, Tower>();
+  // The types of buildings built so far, by their class names
+  private final Map<String, Buildable> types = new HashMap<String, Buildable>();
+
+  private long nextActionTick = 0;
+  private byte nextAction;
+  // True when there are no more actions
+  private boolean ended = false;
+  // True when the game was stopped at the end of the recording
+  private boolean stopped = false;
+
+  public ReplayPlayer(File file) throws IOException {
+    in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+    if (in.readInt() != ReplayRecorder.MAGIC) {
+      in.close();
+      throw new IOException(file + " is not a replay.");
+    }
+    byte version = in.readByte();
+    if (version != ReplayRecorder.VERSION) {
+      in.close();
+      throw new IOException("Unsupported replay version " + version + " in " + file);
+    }
+    long seed = in.readLong();
+    simulation = new Simulation(MapParser.parse(in.readUTF()), seed);
+    readNextAction();
+  }
+
+  public Simulation getSimulation() {
+    return simulation;
+  }
+
+  /**
+   * Plays the whole replay.
+   *
+   * @param totalTimes if not null, the times spent in each part of each tick are added to this
+   * @return the simulation, at the end of the game
+   */
+  public Simulation play(Scene.DebugTimes totalTimes) throws IOException {
+    Scene.DebugTimes debugTimes = null;
+    if (totalTimes != null) {
+      debugTimes = simulation.getScene().new DebugTimes();
+    }
+    try {
+      while (true) {
+        while (!ended && nextActionTick <= simulation.getTicks()) {
+          doNextAction();
+          readNextAction();
+        }
+        if (stopped || simulation.isGameOver() || (ended && !simulation.isLevelInProgress())) {
+          return simulation;
+        }
+        // The same as Game's clock does on each tick
+        if (simulation.isLevelComplete()) {
+          simulation.endLevel();
+        }
+        simulation.tick(debugTimes);
+        if (totalTimes != null) {
+          totalTimes.processCreepsTime += debugTimes.processCreepsTime;
+          totalTimes.processBulletsTime += debugTimes.processBulletsTime;
+          totalTimes.processTowersTime += debugTimes.processTowersTime;
+        }
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private void readNextAction() throws IOException {
+    try {
+      nextActionTick += in.readInt();
+      nextAction = in.readByte();
+    } catch (EOFException e) {
+      // The recording was cut off, so carry on until the end of the current level
+      ended = true;
+    }
+  }
+
+  private void doNextAction() throws IOException {
+    switch (nextAction) {
+      case ReplayRecorder.START_LEVEL:
+        simulation.startLevel();
+        break;
+      case ReplayRecorder.BUILD:
+        Buildable b = simulation.build(getType(in.readUTF()), readPoint());
+        if (b == null) {
+          throw new IllegalStateException("Couldn't build at tick " + simulation.getTicks());
+        }
+        if (b instanceof Tower) {
+          towers.put(((Tower) b).getCentre(), (Tower) b);
+        }
+        break;
+      case ReplayRecorder.SELL:
+        Tower toSell = readTower();
+        towers.remove(toSell.getCentre());
+        simulation.sell(toSell);
+        break;
+      case ReplayRecorder.UPGRADE:
+        Tower t = in.readBoolean() ? readTower() : null;
+        Attribute a = Attribute.values()[in.readByte()];
+        simulation.upgrade(t, a, in.readByte());
+        break;
+      case ReplayRecorder.END_LEVEL_UPGRADE:
+        byte attribute = in.readByte();
+        byte upgrades = in.readByte();
+        simulation.endLevelUpgrade(
+            (upgrades & ReplayRecorder.LIVES_UPGRADE) != 0,
+            (upgrades & ReplayRecorder.INTEREST_UPGRADE) != 0,
+            (upgrades & ReplayRecorder.MONEY_UPGRADE) != 0,
+            attribute == ReplayRecorder.NONE ? null : Attribute.values()[attribute]);
+        break;
+      case ReplayRecorder.SET_COMPARATOR:
+        simulation.setCreepComparator(readTower(), Simulation.comparators.get(in.readByte()));
+        break;
+      case ReplayRecorder.END:
+        ended = true;
+        stopped = true;
+        break;
+      default:
+        throw new IOException("Unknown action " + nextAction + " at tick " + nextActionTick);
+    }
+  }
+
+  private Buildable getType(String className) {
+    Buildable type = types.get(className);
+    if (type == null) {
+      type = BuildableTypes.create(className, new Point());
+      types.put(className, type);
+    }
+    return type;
+  }
+
+  private Tower readTower() throws IOException {
+    Point p = readPoint();
+    Tower t = towers.get(p);
+    if (t == null) {
+      throw new IllegalStateException("No tower at " + p + " at tick " + simulation.getTicks());
+    }
+    return t;
+  }
+
+  private Point readPoint() throws IOException {
+    return new Point(in.readShort(), in.readShort());
+  }
+}
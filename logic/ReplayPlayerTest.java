@@ -0,0 +1,101 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import gui.maps.MapParser;
+import java.awt.Point;
+import java.io.File;
+import java.io.IOException;
+import org.junit.Test;
+import towers.Buildable;
+import towers.Tower;
+import towers.Tower.Attribute;
+import towers.impl.BomberTower;
+import towers.impl.ZapperTower;
+
+public class ReplayPlayerTest {
+
+  @Test
+  public void testReplayPlaysTheSame() throws IOException {
+    File file = File.createTempFile("replay", ".pdr");
+    file.deleteOnExit();
+    Simulation sim = new Simulation(MapParser.parse("mosaicPathEasy.xml"), 7);
+    ReplayRecorder recorder = new ReplayRecorder(file, sim);
+
+    Tower bomber = (Tower) build(sim, recorder, new BomberTower(new Point()));
+    tick(sim, 10);
+    Tower zapper = (Tower) build(sim, recorder, new ZapperTower(new Point()));
+    sim.setCreepComparator(zapper, Simulation.comparators.get(4));
+    recorder.setCreepComparator(zapper, Simulation.comparators.get(4));
+    for (int level = 0; level < 3; level++) {
+      sim.startLevel();
+      recorder.startLevel();
+      tick(sim, 300);
+      sim.upgrade(bomber, Attribute.Damage, 1);
+      recorder.upgrade(bomber, Attribute.Damage, 1);
+      while (sim.isLevelInProgress()) {
+        tick(sim, 1);
+      }
+      sim.endLevelUpgrade(false, true, false, null);
+      recorder.endLevelUpgrade(false, true, false, null);
+    }
+    sim.sell(zapper);
+    recorder.sell(zapper);
+    tick(sim, 5);
+    recorder.close();
+
+    Simulation replayed = new ReplayPlayer(file).play(null);
+    assertEquals(sim.getTicks(), replayed.getTicks());
+    assertEquals(sim.getLevel(), replayed.getLevel());
+    assertEquals(sim.getLives(), replayed.getLives());
+    assertEquals(sim.getMoney(), replayed.getMoney());
+    assertEquals(sim.getInterestRate(), replayed.getInterestRate(), 0);
+  }
+
+  private Buildable build(Simulation sim, ReplayRecorder recorder, Buildable type) {
+    // Build it next to the path so it does something
+    for (int x = 25; x < Constants.MAP_WIDTH; x += 50) {
+      for (int y = 25; y < Constants.MAP_HEIGHT; y += 50) {
+        Point p = new Point(x, y);
+        if (sim.isValidPosition(type, p)
+            && !type.constructNew(new Point(x + 30, y)).canBuild(sim.getGameMap().getPath())) {
+          Buildable b = sim.build(type, p);
+          assertNotNull(b);
+          recorder.build(type, p);
+          return b;
+        }
+      }
+    }
+    throw new AssertionError("Nowhere to build " + type);
+  }
+
+  /** Ticks the same way Game's clock does. */
+  private void tick(Simulation sim, int ticks) {
+    for (int i = 0; i < ticks; i++) {
+      if (sim.isLevelComplete()) {
+        sim.endLevel();
+      }
+      sim.tick(null);
+    }
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import creeps.Creep;
+import java.awt.Point;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Comparator;
+import towers.Buildable;
+import towers.Tower;
+import towers.Tower.Attribute;
+
+/**
+ * Writes every action the player makes in a game to a file, along with the tick it was made on, so
+ * the game can be played again exactly by {@link ReplayPlayer}.
+ *
+ * <p>As all the randomness comes from the seed, the seed, the map and the actions are all that is
+ * needed. The actions must be made between ticks of the simulation for the replay to be exact.
+ *
+ * <p>The file starts with a header of the magic number, version, seed and map file name. Each
+ * action is then the number of ticks since the previous action, its type, and any arguments it
+ * has. Towers are identified by their centre, and attributes and comparators by their index. The
+ * file ends with {@link #END} at the tick the game was stopped.
+ */
+public class ReplayRecorder {
+
+  static final int MAGIC = 0x50445250; // "PDRP"
+  static final byte VERSION = 1;
+
+  static final byte START_LEVEL = 0;
+  static final byte BUILD = 1;
+  static final byte SELL = 2;
+  static final byte UPGRADE = 3;
+  static final byte END_LEVEL_UPGRADE = 4;
+  static final byte SET_COMPARATOR = 5;
+  static final byte END = 6;
+
+  // Used in place of an attribute when the upgrade was for something else
+  static final byte NONE = -1;
+
+  static final byte LIVES_UPGRADE = 1;
+  static final byte INTEREST_UPGRADE = 2;
+  static final byte MONEY_UPGRADE = 4;
+
+  private final Simulation simulation;
+  private DataOutputStream out;
+  private long lastTick = 0;
+
+  public ReplayRecorder(File file, Simulation simulation) throws IOException {
+    this.simulation = simulation;
+    out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+    out.writeLong(simulation.getSeed());
+    out.writeUTF(simulation.getGameMap().getFileName());
+    out.flush();
+  }
+
+  public void startLevel() {
+    write(START_LEVEL, null);
+  }
+
+  public void build(Buildable type, Point p) {
+    write(
+        BUILD,
+        out -> {
+          out.writeUTF(type.getClass().getName());
+          writePoint(out, p);
+        });
+  }
+
+  public void sell(Tower t) {
+    write(SELL, out -> writePoint(out, t.getCentre()));
+  }
+
+  /** @param t the tower that was upgraded, or null if it was all of them */
+  public void upgrade(Tower t, Attribute a, int numTimes) {
+    write(
+        UPGRADE,
+        out -> {
+          writeTower(out, t);
+          out.writeByte(a.ordinal());
+          out.writeByte(numTimes);
+        });
+  }
+
+  public void endLevelUpgrade(
+      boolean livesUpgrade, boolean interestUpgrade, boolean moneyUpgrade, Attribute a) {
+    write(
+        END_LEVEL_UPGRADE,
+        out -> {
+          out.writeByte(a == null ? NONE : a.ordinal());
+          out.writeByte(
+              (livesUpgrade ? LIVES_UPGRADE : 0)
+                  | (interestUpgrade ? INTEREST_UPGRADE : 0)
+                  | (moneyUpgrade ? MONEY_UPGRADE : 0));
+        });
+  }
+
+  public void setCreepComparator(Tower t, Comparator<Creep> c) {
+    write(
+        SET_COMPARATOR,
+        out -> {
+          writePoint(out, t.getCentre());
+          out.writeByte(Simulation.comparators.indexOf(c));
+        });
+  }
+
+  /** Marks the end of the game at the current tick, and closes the file. */
+  public void close() {
+    write(END, null);
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        e.printStackTrace();
+      }
+      out = null;
+    }
+  }
+
+  private void write(byte type, Arguments arguments) {
+    if (out == null) {
+      return;
+    }
+    long tick = simulation.getTicks();
+    try {
+      out.writeInt((int) (tick - lastTick));
+      out.writeByte(type);
+      if (arguments != null) {
+        arguments.write(out);
+      }
+      // Flush each action as there aren't many, and if the game crashes everything before it is
+      // what's wanted
+      out.flush();
+    } catch (IOException e) {
+      // Stop recording, but let the game carry on
+      e.printStackTrace();
+      out = null;
+    }
+    lastTick = tick;
+  }
+
+  private static void writeTower(DataOutputStream out, Tower t) throws IOException {
+    if (t == null) {
+      out.writeBoolean(false);
+    } else {
+      out.writeBoolean(true);
+      writePoint(out, t.getCentre());
+    }
+  }
+
+  private static void writePoint(DataOutputStream out, Point p) throws IOException {
+    out.writeShort(p.x);
+    out.writeShort(p.y);
+  }
+
+  private interface Arguments {
+    void write(DataOutputStream out) throws IOException;
+  }
+}
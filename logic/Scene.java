@@ -20,14 +20,26 @@
 package logic;
 
 import creeps.Creep;
+import creeps.CreepStore;
 import gui.Drawable;
+import gui.maps.MapParser.GameMap;
 import java.awt.Point;
+import java.awt.Polygon;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import towers.AbstractTower;
+import towers.BasicBullet;
+import towers.BasicBulletPool;
 import towers.Buildable;
 import towers.Bullet;
+import towers.Footprint;
 import towers.Ghost;
 import towers.Tower;
 import towers.Tower.Attribute;
@@ -38,22 +50,75 @@ import towers.impl.WaveTower;
 
 public class Scene {
 
-  private final List<Creep> creeps = Collections.synchronizedList(new ArrayList<Creep>());
+  // Below this many bullets, splitting them between threads costs more than it saves
+  private static final int minBulletsToTickInParallel = 500;
+
+  // Kept in the default order towers target them in (should be FirstComparator) for two reasons:
+  // Firstly, most towers should use the default comparator so don't need to resort this.
+  // Secondly, bullets will hit creeps closest to the end first when they could hit two
+  // which is a slight aid.
+  private final OrderedCreeps creeps = new OrderedCreeps(AbstractTower.DEFAULT_CREEP_COMPARATOR);
+  // Where the state of the creeps is kept
+  private final CreepStore creepStore = new CreepStore();
   private final List<Tower> towers = Collections.synchronizedList(new ArrayList<Tower>());
   private final List<Ghost> ghosts = Collections.synchronizedList(new ArrayList<Ghost>());
   private final List<Bullet> bullets = new ArrayList<Bullet>();
-
+  // For each of bullets, how many had been added to the pool before it, so all the bullets can be
+  // ticked in the order they were fired
+  private final List<Long> pooledBefore = new ArrayList<Long>();
+  // Plain bullets go in here rather than bullets, as it's much faster with lots of them
+  private final BasicBulletPool bulletPool = new BasicBulletPool();
+  // Kept up to date as the creeps move, rather than made again every tick
+  private final CreepGrid creepGrid = new CreepGrid();
+
+  // The towers again, for finding those near a point
+  private final TowerGrid towerGrid = new TowerGrid();
+  private final List<AidTower> aidTowers = new ArrayList<AidTower>();
   private List<Tower> towersToAdd = Collections.synchronizedList(new ArrayList<Tower>());
   private List<Tower> towersToRemove = Collections.synchronizedList(new ArrayList<Tower>());
   private List<Ghost> ghostsToAdd = Collections.synchronizedList(new ArrayList<Ghost>());
 
   private int ghostsUsed = 0;
 
+  // All randomness in the game should come from here so a game with the same seed and the same
+  // inputs plays out exactly the same
+  private final long seed;
+  private final Random rand;
+  // Choosing the bullets to draw is kept separate, as how many times that happens depends on the
+  // frame rate, which shouldn't affect the game
+  private final Random drawingRand;
+
+  // The path the creeps follow
+  private final PathTable path;
+  // The parts of the map the path covers, which decide where buildings can go
+  private final List<Polygon> pathPolygons;
+  // Where each footprint of building can be built, made the first time each is needed
+  private final Map<Footprint, PlacementRaster> placementRasters =
+      new HashMap<Footprint, PlacementRaster>();
+
+  public Scene(long seed, GameMap gameMap) {
+    this.seed = seed;
+    this.path = gameMap.getPathTable();
+    pathPolygons = gameMap.getPath();
+    rand = new Random(seed);
+    drawingRand = new Random(rand.nextLong());
+  }
+
   public void clear() {
     creeps.clear();
+    creepStore.clear();
     towers.clear();
     ghosts.clear();
     bullets.clear();
+    pooledBefore.clear();
+    bulletPool.clear();
+    creepGrid.clear();
+    towerGrid.clear();
+    aidTowers.clear();
+    synchronized (placementRasters) {
+      // Only the towers have changed, but making them again is simpler than removing each one
+      placementRasters.clear();
+    }
     towersToAdd.clear();
     towersToRemove.clear();
     ghostsToAdd.clear();
@@ -63,9 +128,6 @@ public class Scene {
   public void addBuilding(Buildable b) {
     if (b instanceof Tower) {
       towersToAdd.add((Tower) b);
-      if (b instanceof AidTower) {
-        ((AidTower) b).setTowers(Collections.unmodifiableList(towers));
-      }
     }
     if (b instanceof Ghost) {
       ghostsToAdd.add((Ghost) b);
@@ -96,8 +158,21 @@ public class Scene {
     }
   }
 
+  public long getSeed() {
+    return seed;
+  }
+
+  public Random getRandom() {
+    return rand;
+  }
+
+  /** The store the state of this scene's creeps should be kept in. */
+  public CreepStore getCreepStore() {
+    return creepStore;
+  }
+
   public int getNumBullets() {
-    return bullets.size();
+    return bullets.size() + bulletPool.size();
   }
 
   public int getNumCreeps() {
@@ -158,53 +233,63 @@ public class Scene {
     return num;
   }
 
+  // These three are used by the GUI on every frame, so look in the grids rather than go through
+  // every tower or creep while holding their locks
+
   public Tower getTowerContaining(Point p) {
-    synchronized (towers) {
-      for (Tower t : towers) {
-        if (t.contains(p)) {
-          return t;
-        }
-      }
-    }
-    return null;
+    return towerGrid.containing(p);
   }
 
   public Creep getCreepContaining(Point p) {
-    synchronized (creeps) {
-      for (Creep c : creeps) {
-        if (c.intersects(p)) {
-          // intersects returns false if the creep is dead so don't have to check that
-          return c;
-        }
+    for (Creep c : creepGrid.at(p)) {
+      if (c.intersects(p)) {
+        // intersects returns false if the creep is dead so don't have to check that
+        return c;
       }
     }
     return null;
   }
 
   public boolean canBuild(Buildable b) {
-    if (b instanceof Tower) {
-      synchronized (towers) {
-        for (Tower t : towers) {
-          // Checks that the point doesn't clash with another tower
-          if (t.clashesWith((Tower) b)) {
-            return false;
-          }
-        }
-      }
+    // Checks that the point doesn't clash with another tower
+    return !(b instanceof Tower) || !towerGrid.clashesWithAny((Tower) b);
+  }
+
+  /**
+   * Whether a building of the given type can be built with its centre at p, as far as the path
+   * and the other towers are concerned. On the map, this is a lookup in a raster worked out for
+   * each footprint of building, so nothing is made.
+   */
+  public boolean canBuildAt(Buildable type, Point p) {
+    if (!PlacementRaster.covers(p)) {
+      Buildable atP = type.constructNew(p);
+      return atP.canBuild(pathPolygons) && canBuild(atP);
     }
-    return true;
+    return getPlacementRaster(type).canBuild(p);
   }
 
+  /**
+   * Gets what to draw for the scene as it is now. The creeps, towers, ghosts and plain bullets are
+   * copies of their state, so they can be drawn on another thread while the next ticks are done.
+   * The other bullets are still drawn themselves, as each kind draws itself its own way, so may be
+   * drawn part way through a tick. This should be called between ticks.
+   */
   public List<Drawable> getDrawables() {
     List<Drawable> drawables = new ArrayList<Drawable>();
-    drawables.addAll(creeps);
-    drawables.addAll(towers);
-    drawables.addAll(ghosts);
+    drawables.add(creepStore.createDrawable(creeps.view()));
+    synchronized (towers) {
+      drawables.addAll(AbstractTower.createDrawables(towers));
+    }
+    synchronized (ghosts) {
+      for (Ghost g : ghosts) {
+        drawables.add(g.createDrawable());
+      }
+    }
     drawables.addAll(filterBulletsForDrawing());
     return drawables;
   }
 
-  private List<Bullet> filterBulletsForDrawing() {
+  private List<Drawable> filterBulletsForDrawing() {
     // In the late game when there are lots of bullets flying around it can cover the map making
     // it hard to see anything and increasing render times. Filter out excessive numbers of
     // bullets from the rendering step.
@@ -217,12 +302,13 @@ public class Scene {
     int totalMax = maxBullets + maxBeams + maxExplodingBombs + maxWaves;
 
     List<Bullet> shuffledBullets = new ArrayList<>(bullets);
-    Collections.shuffle(shuffledBullets); // so every bullet has an equal chance of being shown
+    // So every bullet has an equal chance of being shown
+    Collections.shuffle(shuffledBullets, drawingRand);
     int numBeams = 0;
     int numExplodingBombs = 0;
     int numWaves = 0;
     int numOtherBullets = 0;
-    List<Bullet> filteredBullets = new ArrayList<>(totalMax);
+    List<Drawable> filteredBullets = new ArrayList<>(totalMax);
     for (Bullet b : shuffledBullets) {
       if (b instanceof BeamTower.Beam) {
         if (numBeams++ > maxBeams) {
@@ -246,6 +332,9 @@ public class Scene {
         break;
       }
     }
+    // The plain bullets in the pool share the limit with the other bullets
+    filteredBullets.add(
+        bulletPool.createDrawable(Math.max(maxBullets - numOtherBullets, 0), drawingRand));
     // if (Math.random() < 0.01) {
     //    System.out.println("filtered bullets: " + shuffledBullets.size() + " / " +
     // filteredBullets.size());
@@ -258,13 +347,9 @@ public class Scene {
   public TickResult tick(DebugTimes debugTimes, boolean levelInProgress, Creep newCreep) {
     int livesLost;
     double moneyEarned = 0;
-    List<Creep> creepsCopy = new ArrayList<Creep>(creeps);
-    // Sort with the default comparator here (should be FirstComparator) for two reasons:
-    // Firstly, most towers should use the default comparator so don't need to resort this.
-    // Secondly, bullets will hit creeps closest to the end first when they could hit two
-    // which is a slight aid.
-    Collections.sort(creepsCopy, AbstractTower.DEFAULT_CREEP_COMPARATOR);
-    List<Creep> unmodifiableCreeps = Collections.unmodifiableList(creepsCopy);
+    // This doesn't copy the creeps, so once tickCreeps has moved, added, removed and reordered
+    // them, it shows them in their new order for the rest of the tick
+    List<Creep> unmodifiableCreeps = creeps.view();
     if (debugTimes != null) {
       // Make sure any changes here or below are reflected in both, bar the timing bits
       long beginTime = System.nanoTime();
@@ -298,11 +383,15 @@ public class Scene {
         // True if creep has either been killed and is gone from screen or has finished
         if (c.tick()) {
           creeps.remove(i);
+          creepGrid.remove(c);
           if (c.isFinished()) { // As opposed to being killed
             livesLost++;
           }
+        } else {
+          creepGrid.update(c);
         }
       }
+      creeps.repair();
     }
     return livesLost;
   }
@@ -315,16 +404,93 @@ public class Scene {
       List<Tower> toRemove = towersToRemove;
       towersToRemove = Collections.synchronizedList(new ArrayList<Tower>());
       towers.removeAll(toRemove);
+      for (Tower t : toRemove) {
+        towerRemoved(t);
+      }
     }
     if (!towersToAdd.isEmpty()) {
       List<Tower> toAdd = towersToAdd;
       towersToAdd = Collections.synchronizedList(new ArrayList<Tower>());
+      // Do this here rather than in addBuilding so it's in the same order as the ticks
+      for (Tower t : toAdd) {
+        t.setRandom(new Random(rand.nextLong()));
+      }
       towers.addAll(toAdd);
+      for (Tower t : toAdd) {
+        towerAdded(t);
+      }
     }
+    // Made once here so towers using the same comparator share the sorting
+    SortedCreeps sortedCreeps =
+        new SortedCreeps(
+            unmodifiableCreeps, AbstractTower.DEFAULT_CREEP_COMPARATOR, creepGrid, path);
     // I tried multi-threading this but it made it slower in my limited testing
     synchronized (towers) {
       for (Tower t : towers) {
-        bullets.addAll(t.tick(unmodifiableCreeps, levelInProgress));
+        for (Bullet b : t.tick(sortedCreeps, levelInProgress)) {
+          addBullet(b);
+        }
+      }
+    }
+  }
+
+  /** Adds a bullet that has just been fired, to be ticked after those fired before it. */
+  void addBullet(Bullet b) {
+    if (BasicBulletPool.canAdd(b)) {
+      bulletPool.add((BasicBullet) b);
+    } else {
+      bullets.add(b);
+      pooledBefore.add(bulletPool.getNumAdded());
+    }
+  }
+
+  private PlacementRaster getPlacementRaster(Buildable type) {
+    synchronized (placementRasters) {
+      PlacementRaster raster = placementRasters.get(type.getFootprint());
+      if (raster == null) {
+        synchronized (towers) {
+          raster = new PlacementRaster(type, pathPolygons, towers);
+        }
+        placementRasters.put(type.getFootprint(), raster);
+      }
+      return raster;
+    }
+  }
+
+  /**
+   * Links the tower with the aid towers and updates where towers can be built, which only needs to
+   * be done when the towers change.
+   */
+  private void towerAdded(Tower t) {
+    towerGrid.add(t);
+    synchronized (placementRasters) {
+      for (PlacementRaster raster : placementRasters.values()) {
+        raster.towerAdded(t);
+      }
+    }
+    if (t instanceof AidTower) {
+      AidTower aidTower = (AidTower) t;
+      aidTowers.add(aidTower);
+      aidTower.setTowers(towerGrid);
+    } else {
+      for (AidTower aidTower : aidTowers) {
+        aidTower.aidIfInRange(t);
+      }
+    }
+  }
+
+  private void towerRemoved(Tower t) {
+    towerGrid.remove(t);
+    synchronized (placementRasters) {
+      for (PlacementRaster raster : placementRasters.values()) {
+        raster.towerRemoved(t, towerGrid);
+      }
+    }
+    if (t instanceof AidTower) {
+      aidTowers.remove(t);
+    } else {
+      for (AidTower aidTower : aidTowers) {
+        aidTower.stopAiding(t);
       }
     }
   }
@@ -352,24 +518,81 @@ public class Scene {
   }
 
   private double tickBullets(List<Creep> unmodifiableCreeps) {
-    CreepGrid creepGrid = new CreepGrid(unmodifiableCreeps);
+    creepGrid.beginTick(unmodifiableCreeps);
+    if (getNumBullets() >= minBulletsToTickInParallel && !MyExecutor.singleThreaded()) {
+      prepareBulletsInParallel(creepGrid);
+    } else {
+      bulletPool.prepareTick(creepGrid, 0, bulletPool.size());
+    }
 
-    // Run through from last to first as bullets are being removed
     double moneyEarned = 0;
-    List<Bullet> remainingBullets = new ArrayList(bullets.size());
-    for (Bullet b : bullets) {
+    // Move the remaining bullets down over the finished ones, keeping them in order
+    int numRemaining = 0;
+    for (int i = 0; i < bullets.size(); i++) {
+      Bullet b = bullets.get(i);
+      Long before = pooledBefore.get(i);
+      // The pooled bullets fired before this one hit first
+      moneyEarned += bulletPool.tickAddedBefore(before);
       double money = b.tick(creepGrid);
       if (money >= 0) {
         moneyEarned += money;
       } else {
-        remainingBullets.add(b);
+        bullets.set(numRemaining, b);
+        pooledBefore.set(numRemaining, before);
+        numRemaining++;
       }
     }
-    bullets.clear();
-    bullets.addAll(remainingBullets);
+    bullets.subList(numRemaining, bullets.size()).clear();
+    pooledBefore.subList(numRemaining, pooledBefore.size()).clear();
+    moneyEarned += bulletPool.tick();
     return moneyEarned;
   }
 
+  /**
+   * Moves the bullets that can be, including those in the pool, and works out which creeps they
+   * might hit, on all the threads.
+   *
+   * <p>The hits are still done one bullet at a time, in order, when they're ticked, so the same
+   * creeps are hit and killed as if this was all done on one thread.
+   */
+  private void prepareBulletsInParallel(final CreepGrid creepGrid) {
+    final List<BasicBullet> toPrepare = new ArrayList<BasicBullet>(bullets.size());
+    for (Bullet b : bullets) {
+      if (b instanceof BasicBullet && ((BasicBullet) b).canPrepareTick()) {
+        toPrepare.add((BasicBullet) b);
+      }
+    }
+    int numTasks = MyExecutor.getNumThreads();
+    List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(numTasks);
+    for (int i = 0; i < numTasks; i++) {
+      final int from = toPrepare.size() * i / numTasks;
+      final int to = toPrepare.size() * (i + 1) / numTasks;
+      final int poolFrom = bulletPool.size() * i / numTasks;
+      final int poolTo = bulletPool.size() * (i + 1) / numTasks;
+      tasks.add(
+          new Callable<Void>() {
+            @Override
+            public Void call() {
+              for (int j = from; j < to; j++) {
+                toPrepare.get(j).prepareTick(creepGrid);
+              }
+              bulletPool.prepareTick(creepGrid, poolFrom, poolTo);
+              return null;
+            }
+          });
+    }
+    try {
+      for (Future<Void> f : MyExecutor.invokeAll(tasks)) {
+        f.get();
+      }
+    } catch (InterruptedException e) {
+      // Should never happen
+      throw new RuntimeException(e);
+    } catch (ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   public class TickResult {
     public final int livesLost;
     public final double moneyEarned;
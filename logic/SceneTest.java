@@ -0,0 +1,126 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import creeps.Creep;
+import creeps.Pacman;
+import gui.maps.MapParser;
+import gui.maps.MapParser.GameMap;
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.util.Random;
+import org.junit.Test;
+import towers.BasicBullet;
+import towers.Bullet;
+import towers.Tower;
+import towers.impl.BasicTower;
+import util.Vector2D;
+
+public class SceneTest {
+
+  private final GameMap map = MapParser.parse("mosaicPathEasy.xml");
+  private final Scene scene = new Scene(1, map);
+  private Creep creep;
+
+  @Test
+  public void testPooledBulletsHitInTheOrderTheyWereFired() {
+    addCreep();
+    Tower pooled = new BasicTower(new Point());
+    Tower notPooled = new BasicTower(new Point());
+    Tower pooledLast = new BasicTower(new Point());
+    // Any one of these would kill the creep, so the first fired should get the kill
+    scene.addBullet(fireAtCreep(pooled, 30, false));
+    scene.addBullet(fireAtCreep(notPooled, 30, false));
+    scene.addBullet(fireAtCreep(pooledLast, 30, false));
+    double money = scene.tick(null, true, null).moneyEarned;
+    assertKills(1, pooled);
+    assertKills(0, notPooled);
+    assertKills(0, pooledLast);
+    // Only the bullet that killed the creep should have done any damage to it
+    assertTrue(pooled.getExperienceReport().damage > 0);
+    assertEquals(0, notPooled.getExperienceReport().damage, 0);
+    assertEquals(0, pooledLast.getExperienceReport().damage, 0);
+    assertTrue(money > 0);
+  }
+
+  @Test
+  public void testOtherBulletsHitInTheOrderTheyWereFired() {
+    addCreep();
+    Tower notPooled = new BasicTower(new Point());
+    Tower pooled = new BasicTower(new Point());
+    scene.addBullet(fireAtCreep(notPooled, 30, true));
+    scene.addBullet(fireAtCreep(pooled, 30, false));
+    scene.tick(null, true, null);
+    assertKills(1, notPooled);
+    assertKills(0, pooled);
+  }
+
+  @Test
+  public void testPooledBulletsStayInOrderWhenOthersFinish() {
+    addCreep();
+    Tower first = new BasicTower(new Point());
+    Tower second = new BasicTower(new Point());
+    // These go off screen and are removed on the first tick, moving the others down
+    scene.addBullet(fireFrom(new BasicTower(new Point()), new Point2D.Double(-500, -500), false));
+    scene.addBullet(fireAtCreep(first, 90, false));
+    scene.addBullet(fireFrom(new BasicTower(new Point()), new Point2D.Double(-500, -500), false));
+    scene.addBullet(fireAtCreep(second, 90, false));
+    scene.tick(null, true, null);
+    assertEquals(2, scene.getNumBullets());
+    assertKills(0, first);
+    // Both reach the creep on the second tick
+    scene.tick(null, true, null);
+    assertKills(1, first);
+    assertKills(0, second);
+  }
+
+  /** Adds a creep with little hp, and moves it well onto the map. */
+  private void addCreep() {
+    creep = Pacman.create(1, 10, map.getPathTable(), scene.getCreepStore(), new Random(1));
+    scene.tick(null, true, creep);
+    for (int i = 0; i < 100; i++) {
+      scene.tick(null, true, null);
+    }
+  }
+
+  /** Fires a bullet straight down at the creep from distance above it. */
+  private Bullet fireAtCreep(Tower shotBy, int distance, boolean pooled) {
+    Point2D p = creep.getPosition();
+    return fireFrom(shotBy, new Point2D.Double(p.getX(), p.getY() - distance), pooled);
+  }
+
+  private Bullet fireFrom(Tower shotBy, Point2D p, boolean notPooled) {
+    Point from = new Point((int) p.getX(), (int) p.getY());
+    Vector2D down = new Vector2D(0, 1);
+    if (notPooled) {
+      // Ticks the same as a plain bullet, but isn't one so isn't put in the pool
+      return new BasicBullet(shotBy, down, 0, 200, 60, 1000, from) {};
+    }
+    return new BasicBullet(shotBy, down, 0, 200, 60, 1000, from);
+  }
+
+  private static void assertKills(int kills, Tower t) {
+    assertEquals(kills, t.getExperienceReport().kills);
+  }
+}
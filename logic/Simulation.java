@@ -0,0 +1,370 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import creeps.Creep;
+import creeps.Pacman;
+import gui.maps.MapParser.GameMap;
+import java.awt.Point;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import towers.Buildable;
+import towers.Tower;
+import towers.Tower.Attribute;
+
+/**
+ * The state of a single game, and the rules that change it, without anything to do with displaying
+ * it.
+ *
+ * <p>{@link Game} drives this from its clock, at wall clock speed, and shows the results in the
+ * GUI. Without a GUI, levels can be run tick by tick as fast as the CPU allows, which is what
+ * {@link #runLevel()} is for.
+ */
+public class Simulation {
+
+  static final int upgradeLives = 5;
+  static final int upgradeMoney = 1000;
+  static final double upgradeInterest = 0.01;
+
+  // The choices of how a tower picks which creep to shoot at, in the order they're cycled through
+  static final List<Comparator<Creep>> comparators = createComparators();
+
+  private final Scene scene;
+  private final GameMap gameMap;
+  private final PathTable path;
+
+  private final Map<Attribute, Integer> upgradesSoFar =
+      new EnumMap<Attribute, Integer>(Attribute.class);
+
+  private int level = 0;
+  private boolean levelInProgress = false;
+  private BigInteger money = BigInteger.valueOf(4000);
+  private int lives = 25;
+  private int livesLostOnThisLevel = 0;
+  private double interestRate = 0.03;
+  private int endLevelUpgradesLeft = 0;
+  // The number of ticks since the start of the game
+  private long ticks = 0;
+
+  private int creepsToAdd;
+  private long levelHP;
+  private int ticksBetweenAddCreep;
+  private int addCreepIn = 0;
+
+  // I know I shouldn't really use a double, but it should be fine.
+  // This is used so fractional amounts can be saved between ticks.
+  private double moneyEarned = 0;
+
+  /**
+   * @param seed all the randomness in the game comes from this, so two simulations with the same
+   *     seed, given the same actions at the same ticks, will play out exactly the same
+   */
+  public Simulation(GameMap gameMap, long seed) {
+    this.gameMap = gameMap;
+    path = gameMap.getPathTable();
+    scene = new Scene(seed, gameMap);
+  }
+
+  /**
+   * Plays the next level through to the end without any delay between ticks.
+   *
+   * @return the number of ticks the level took
+   */
+  public long runLevel() {
+    if (!startLevel()) {
+      throw new IllegalStateException("Level " + level + " is still in progress.");
+    }
+    long startTicks = ticks;
+    while (!isLevelComplete() && !isGameOver()) {
+      tick(null);
+    }
+    if (!isGameOver()) {
+      endLevel();
+    }
+    return ticks - startTicks;
+  }
+
+  /**
+   * Ticks the scene once, adding a new creep if one is due.
+   *
+   * <p>The lives lost and money earned on this tick have already been applied to this simulation.
+   */
+  public Scene.TickResult tick(Scene.DebugTimes debugTimes) {
+    Scene.TickResult result = scene.tick(debugTimes, levelInProgress, getNewCreep());
+    ticks++;
+    livesLostOnThisLevel += result.livesLost;
+    lives -= result.livesLost;
+    moneyEarned += result.moneyEarned;
+    money = money.add(BigInteger.valueOf((long) moneyEarned));
+    // Fractional amounts of money are kept until the next tick
+    moneyEarned -= (long) moneyEarned;
+    return result;
+  }
+
+  /**
+   * Starts the next level.
+   *
+   * @return false if the current level is still in progress
+   */
+  public boolean startLevel() {
+    if (levelInProgress) {
+      return false;
+    }
+    level++;
+    livesLostOnThisLevel = 0;
+    levelInProgress = true;
+    creepsToAdd = Formulae.numCreeps(level);
+    levelHP = Formulae.hp(level);
+    ticksBetweenAddCreep = Formulae.ticksBetweenAddCreep(level);
+    return true;
+  }
+
+  /** Whether the level is in progress but every creep has been added and is now gone. */
+  public boolean isLevelComplete() {
+    return levelInProgress && scene.getNumCreeps() == 0 && creepsToAdd <= 0;
+  }
+
+  /** Finishes the current level, paying out the end of level bonuses and interest. */
+  public LevelReport endLevel() {
+    levelInProgress = false;
+    endLevelUpgradesLeft++;
+
+    BigInteger interest =
+        new BigDecimal(money).multiply(new BigDecimal(interestRate)).toBigInteger();
+    int levelEndBonus = Formulae.levelEndBonus(level);
+    int noEnemiesThroughBonus = 0;
+    if (livesLostOnThisLevel == 0) {
+      noEnemiesThroughBonus = Formulae.noEnemiesThroughBonus(level);
+    }
+    money = money.add(interest.add(BigInteger.valueOf(levelEndBonus + noEnemiesThroughBonus)));
+
+    // Remove all the ghosts at the end of the level
+    scene.removeAllGhosts();
+
+    return new LevelReport(level, levelEndBonus, noEnemiesThroughBonus, interest);
+  }
+
+  public boolean isGameOver() {
+    return lives <= 0;
+  }
+
+  /** Stops the current level and removes everything from the scene. */
+  public void clear() {
+    scene.clear();
+    levelInProgress = false;
+  }
+
+  /** Gives the player more money, for tests that need more towers than can be bought at first. */
+  void addMoney(long amount) {
+    money = money.add(BigInteger.valueOf(amount));
+  }
+
+  public boolean canAfford(Buildable b) {
+    return money.compareTo(BigInteger.valueOf(scene.getBuildCost(b))) >= 0;
+  }
+
+  public boolean isValidPosition(Buildable b, Point p) {
+    if (b == null || p == null) {
+      return false;
+    }
+    // Checks that the point isn't on the path and doesn't clash with another tower
+    return scene.canBuildAt(b, p);
+  }
+
+  /**
+   * Builds a new instance of the given type of building at p, if it can be afforded and the
+   * position is valid.
+   *
+   * @return the new building, or null if it couldn't be built
+   */
+  public Buildable build(Buildable type, Point p) {
+    if (!isValidPosition(type, p) || !canAfford(type)) {
+      return null;
+    }
+    Buildable b = type.constructNew(p);
+    if (b instanceof Tower) {
+      // Ensure new towers get the effect of all the bonus upgrades so far
+      for (Attribute a : upgradesSoFar.keySet()) {
+        for (int i = 0; i < upgradesSoFar.get(a); i++) {
+          ((Tower) b).upgrade(a, false);
+        }
+      }
+    }
+    // Have to take the money before adding otherwise the price will be wrong
+    money = money.subtract(BigInteger.valueOf(scene.getBuildCost(b)));
+    scene.addBuilding(b);
+    return b;
+  }
+
+  /** The cost of upgrading a, for the given tower, or all towers if it is null. */
+  public long getUpgradeCost(Tower t, Attribute a) {
+    if (t == null) {
+      return scene.getUpgradeAllTowersCost(a);
+    } else {
+      return Formulae.upgradeCost(t.getAttributeLevel(a));
+    }
+  }
+
+  /** Buys up to numTimes upgrades of a, for the given tower, or all towers if it is null. */
+  public void upgrade(Tower t, Attribute a, int numTimes) {
+    for (int i = 0; i < numTimes; i++) {
+      long cost = getUpgradeCost(t, a);
+      if (money.compareTo(BigInteger.valueOf(cost)) >= 0) {
+        money = money.subtract(BigInteger.valueOf(cost));
+        if (t == null) {
+          scene.upgradeAllTowers(a, true);
+        } else {
+          t.upgrade(a, true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Uses one of the free end of level upgrades, for the attribute a if it isn't null, otherwise
+   * the first of the other options that is true.
+   *
+   * @return false if there were no end of level upgrades left
+   */
+  public boolean endLevelUpgrade(
+      boolean livesUpgrade, boolean interestUpgrade, boolean moneyUpgrade, Attribute a) {
+    if (endLevelUpgradesLeft <= 0) {
+      return false;
+    }
+    endLevelUpgradesLeft--;
+    if (a != null) {
+      upgradesSoFar.put(a, upgradesSoFar.containsKey(a) ? upgradesSoFar.get(a) + 1 : 1);
+      scene.upgradeAllTowers(a, false);
+    } else if (livesUpgrade) {
+      lives += upgradeLives;
+    } else if (interestUpgrade) {
+      interestRate += upgradeInterest;
+    } else if (moneyUpgrade) {
+      money = money.add(BigInteger.valueOf(upgradeMoney));
+    }
+    return true;
+  }
+
+  public void sell(Tower t) {
+    money = money.add(BigInteger.valueOf(scene.getTowerSellValue(t)));
+    t.sell();
+    scene.removeTower(t);
+  }
+
+  public void setCreepComparator(Tower t, Comparator<Creep> c) {
+    t.setCreepComparator(c);
+  }
+
+  public Scene getScene() {
+    return scene;
+  }
+
+  public GameMap getGameMap() {
+    return gameMap;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  public boolean isLevelInProgress() {
+    return levelInProgress;
+  }
+
+  public BigInteger getMoney() {
+    return money;
+  }
+
+  public int getLives() {
+    return lives;
+  }
+
+  public double getInterestRate() {
+    return interestRate;
+  }
+
+  public int getEndLevelUpgradesLeft() {
+    return endLevelUpgradesLeft;
+  }
+
+  public long getSeed() {
+    return scene.getSeed();
+  }
+
+  public long getTicks() {
+    return ticks;
+  }
+
+  /** The number of creeps still to come this level, including those in the scene. */
+  public int getNumCreepsLeft() {
+    return creepsToAdd + scene.getNumCreeps();
+  }
+
+  private static List<Comparator<Creep>> createComparators() {
+    List<Comparator<Creep>> list = new ArrayList<Comparator<Creep>>();
+    list.add(new Creep.FirstComparator());
+    list.add(new Creep.LastComparator());
+    list.add(new Creep.FastestComparator());
+    list.add(new Creep.SlowestComparator());
+    list.add(new Creep.MostHPComparator());
+    list.add(new Creep.LeastHPComparator());
+    list.add(new Creep.DistanceComparator(new Point(), true));
+    list.add(new Creep.DistanceComparator(new Point(), false));
+    list.add(new Creep.RandomComparator());
+    return Collections.unmodifiableList(list);
+  }
+
+  private Creep getNewCreep() {
+    Creep creep = null;
+    if (creepsToAdd > 0) {
+      if (addCreepIn < 1) { // If the time has got to zero, add a creep
+        creep = Pacman.create(level, levelHP, path, scene.getCreepStore(), scene.getRandom());
+        // Adds a creep in somewhere between 0 and twice the designated time
+        addCreepIn = scene.getRandom().nextInt(ticksBetweenAddCreep * 2 + 1);
+        creepsToAdd--;
+      } else { // Otherwise decrement the time until the next creep will be added
+        addCreepIn--;
+      }
+    }
+    return creep;
+  }
+
+  public static class LevelReport {
+    public final int level;
+    public final int levelEndBonus;
+    // Zero if any creeps got through on the level
+    public final int noEnemiesThroughBonus;
+    public final BigInteger interest;
+
+    public LevelReport(
+        int level, int levelEndBonus, int noEnemiesThroughBonus, BigInteger interest) {
+      this.level = level;
+      this.levelEndBonus = levelEndBonus;
+      this.noEnemiesThroughBonus = noEnemiesThroughBonus;
+      this.interest = interest;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import creeps.Creep;
+import gui.maps.MapParser;
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+import towers.Buildable;
+import towers.Tower;
+import towers.Tower.Attribute;
+import towers.impl.BomberTower;
+import towers.impl.MultiShotTower;
+import towers.impl.OmnidirectionalTower;
+import towers.impl.ScatterTower;
+import towers.impl.SlowLengthTower;
+import towers.impl.WeakenTower;
+import towers.impl.ZapperTower;
+
+public class SimulationTest {
+
+  @Test
+  public void testRunLevelsWithoutTowers() {
+    Simulation sim = new Simulation(MapParser.parse("mosaicPathEasy.xml"), 1);
+    int lives = sim.getLives();
+    sim.runLevel();
+    assertFalse(sim.isLevelInProgress());
+    assertEquals(1, sim.getLevel());
+    // Nothing to stop them, so every creep should've got through
+    assertEquals(lives - Formulae.numCreeps(1), sim.getLives());
+    assertEquals(1, sim.getEndLevelUpgradesLeft());
+  }
+
+  @Test
+  public void testRunLevelsWithTowers() {
+    Simulation sim = new Simulation(MapParser.parse("mosaicPathEasy.xml"), 2);
+    buildTowers(sim, new BomberTower(new Point()), 2);
+    for (int i = 0; i < 3; i++) {
+      assertTrue(sim.runLevel() > 0);
+    }
+    assertEquals(3, sim.getLevel());
+    // The towers should've killed enough creeps to survive the first few levels
+    assertFalse(sim.isGameOver());
+  }
+
+  @Test
+  public void testSameSeedPlaysTheSame() {
+    Simulation sim1 = new Simulation(MapParser.parse("curvyHard.xml"), 42);
+    Simulation sim2 = new Simulation(MapParser.parse("curvyHard.xml"), 42);
+    // Zapper and scatter towers use randomness too
+    for (Simulation sim : Arrays.asList(sim1, sim2)) {
+      buildTowers(sim, new ZapperTower(new Point()), 1);
+      Tower t = (Tower) buildTowers(sim, new ScatterTower(new Point()), 1);
+      sim.setCreepComparator(t, new Creep.RandomComparator());
+      // Enough to last the levels below
+      buildTowers(sim, new BomberTower(new Point()), 1);
+    }
+    for (int i = 0; i < 4 && !sim1.isGameOver(); i++) {
+      assertEquals(sim1.runLevel(), sim2.runLevel());
+      assertEquals(sim1.getMoney(), sim2.getMoney());
+      assertEquals(sim1.getLives(), sim2.getLives());
+      assertEquals(sim1.isGameOver(), sim2.isGameOver());
+    }
+    assertEquals(4, sim1.getLevel());
+  }
+
+  @Test
+  public void testParallelBulletsPlayTheSame() {
+    String sequential = runWithLotsOfBullets();
+    assertTrue(MyExecutor.singleThreaded());
+    if (MyExecutor.getNumThreads() == 0) {
+      MyExecutor.setNumThreads(4);
+    }
+    MyExecutor.initialiseExecutor();
+    try {
+      assertFalse(MyExecutor.singleThreaded());
+      assertEquals(sequential, runWithLotsOfBullets());
+    } finally {
+      MyExecutor.terminateExecutor();
+    }
+  }
+
+  /**
+   * Runs a few levels with enough bullets that they're ticked in parallel when there's an
+   * executor, returning the level, money and lives after each.
+   */
+  private String runWithLotsOfBullets() {
+    Simulation sim = new Simulation(MapParser.parse("curvyHard.xml"), 3);
+    sim.addMoney(1_000_000_000_000L);
+    Buildable[] types = {
+      new OmnidirectionalTower(new Point()),
+      new MultiShotTower(new Point()),
+      new SlowLengthTower(new Point()),
+      new WeakenTower(new Point())
+    };
+    List<Tower> towers = new ArrayList<Tower>();
+    for (int x = 15; x < Constants.MAP_WIDTH; x += 30) {
+      for (int y = 15; y < Constants.MAP_HEIGHT; y += 30) {
+        Buildable b = sim.build(types[towers.size() % types.length], new Point(x, y));
+        if (b != null) {
+          towers.add((Tower) b);
+        }
+      }
+    }
+    // More shots, which go further, so lots of bullets are flying at once
+    for (Tower t : towers) {
+      sim.upgrade(t, Attribute.Special, 30);
+      sim.upgrade(t, Attribute.Range, 25);
+      sim.upgrade(t, Attribute.Rate, 5);
+    }
+    StringBuilder results = new StringBuilder();
+    int maxBullets = 0;
+    for (int i = 0; i < 3 && !sim.isGameOver(); i++) {
+      sim.startLevel();
+      while (!sim.isLevelComplete() && !sim.isGameOver()) {
+        sim.tick(null);
+        maxBullets = Math.max(maxBullets, sim.getScene().getNumBullets());
+      }
+      if (!sim.isGameOver()) {
+        sim.endLevel();
+      }
+      results.append(sim.getLevel() + " " + sim.getMoney() + " " + sim.getLives() + "\n");
+    }
+    assertTrue(maxBullets > 500);
+    return results.toString();
+  }
+
+  /** Builds up to num towers of the given type next to the path, returning the last one. */
+  private Buildable buildTowers(Simulation sim, Buildable type, int num) {
+    Buildable last = null;
+    int built = 0;
+    for (int x = 25; x < Constants.MAP_WIDTH && built < num; x += 50) {
+      for (int y = 25; y < Constants.MAP_HEIGHT && built < num; y += 50) {
+        Point p = new Point(x, y);
+        if (sim.isValidPosition(type, p) && isNextToPath(sim, type, p)) {
+          last = sim.build(type, p);
+          assertNotNull(last);
+          built++;
+        }
+      }
+    }
+    assertEquals(num, built);
+    return last;
+  }
+
+  private boolean isNextToPath(Simulation sim, Buildable type, Point p) {
+    // A tower one step over would be on the path
+    return !type.constructNew(new Point(p.x + 30, p.y)).canBuild(sim.getGameMap().getPath())
+        || !type.constructNew(new Point(p.x, p.y + 30)).canBuild(sim.getGameMap().getPath());
+  }
+}
@@ -0,0 +1,205 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import creeps.Creep;
+import creeps.Creep.FirstComparator;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import util.Circle;
+
+/**
+ * The creeps for one tick, in the orders towers want them in. This is made once each tick by {@link
+ * Scene}, and each order is only sorted the first time a tower asks for it, so many towers using
+ * the same comparator don't each sort the creeps. Towers can also get just the creeps near them in
+ * each order, without going through the rest.
+ *
+ * <p>Towers are ticked one at a time, so this isn't thread safe.
+ */
+public class SortedCreeps {
+
+  private static final Comparator<Creep> furthestFirst = new FirstComparator();
+
+  private final List<Creep> creeps;
+  private final Comparator<Creep> defaultComparator;
+  private final CreepGrid grid;
+  // Keyed by class, as creep comparators of the same class always sort the same way
+  private final Map<Class<?>, List<Creep>> sorted = new HashMap<>();
+  // The index of each creep in the sorted lists, made when they're first needed
+  private final Map<Class<?>, Map<Creep, Integer>> indices = new HashMap<>();
+  private final PathTable path;
+  // The creeps furthest along the path first, and how far along they are
+  private List<Creep> alongPath;
+  private double[] distancesAlongPath;
+  private int maxHalfWidth = -1;
+
+  /**
+   * @param creeps the creeps, already sorted by defaultComparator
+   * @param grid the grid the creeps are in, used to find those near a point
+   * @param path the path the creeps follow
+   */
+  public SortedCreeps(
+      List<Creep> creeps,
+      Comparator<Creep> defaultComparator,
+      CreepGrid grid,
+      PathTable path) {
+    this.creeps = Collections.unmodifiableList(creeps);
+    this.defaultComparator = defaultComparator;
+    this.grid = grid;
+    this.path = path;
+  }
+
+  /** The creeps in the default order. */
+  public List<Creep> getCreeps() {
+    return creeps;
+  }
+
+  public PathTable getPath() {
+    return path;
+  }
+
+  /** The biggest half width of any of the creeps, or 0 if there are none. */
+  public int getMaxHalfWidth() {
+    if (maxHalfWidth < 0) {
+      maxHalfWidth = 0;
+      for (Creep c : creeps) {
+        maxHalfWidth = Math.max(maxHalfWidth, c.getHalfWidth());
+      }
+    }
+    return maxHalfWidth;
+  }
+
+  /**
+   * The creeps sorted by c. This must not depend on anything but the creeps, e.g. not the position
+   * of a tower, as the same list is given to every tower with a comparator of the same class.
+   */
+  public List<Creep> sortedBy(Comparator<Creep> c) {
+    if (c.getClass() == defaultComparator.getClass()) {
+      return creeps;
+    }
+    List<Creep> list = sorted.get(c.getClass());
+    if (list == null) {
+      list = new ArrayList<Creep>(creeps);
+      Collections.sort(list, c);
+      list = Collections.unmodifiableList(list);
+      sorted.put(c.getClass(), list);
+    }
+    return list;
+  }
+
+  /**
+   * The creeps that may be within range of p, sorted by c the same as {@link #sortedBy} would. This
+   * only looks at the creeps in the cells of the grid near p, rather than going through all of
+   * them, and includes every creep whose bounds are within range, and usually a few more.
+   *
+   * @return a new list, which can be changed
+   */
+  public List<Creep> near(Comparator<Creep> c, Point2D p, double range) {
+    List<Creep> sortedCreeps = sortedBy(c);
+    Map<Creep, Integer> indices = indicesIn(sortedCreeps, c);
+    Collection<Creep> candidates = grid.filter(new Circle(p, range));
+    int[] nearIndices = new int[candidates.size()];
+    int numNear = 0;
+    for (Creep creep : candidates) {
+      Integer i = indices.get(creep);
+      // Creeps that were added to the grid after these were sorted are left out
+      if (i != null) {
+        nearIndices[numNear++] = i;
+      }
+    }
+    // Sorting the indices puts the creeps in the same order as the sorted list
+    Arrays.sort(nearIndices, 0, numNear);
+    List<Creep> near = new ArrayList<Creep>(numNear);
+    for (int i = 0; i < numNear; i++) {
+      near.add(sortedCreeps.get(nearIndices[i]));
+    }
+    return near;
+  }
+
+  private Map<Creep, Integer> indicesIn(List<Creep> sortedCreeps, Comparator<Creep> c) {
+    Map<Creep, Integer> map = indices.get(c.getClass());
+    if (map == null) {
+      map = new IdentityHashMap<Creep, Integer>(sortedCreeps.size());
+      for (int i = 0; i < sortedCreeps.size(); i++) {
+        map.put(sortedCreeps.get(i), i);
+      }
+      indices.put(c.getClass(), map);
+    }
+    return map;
+  }
+
+  /**
+   * The creeps whose distance along the path is within coverage, furthest along first. This only
+   * needs a couple of binary searches for each interval of coverage.
+   *
+   * @return a new list, which can be changed
+   */
+  public List<Creep> onPath(PathCoverage coverage) {
+    if (alongPath == null) {
+      findDistancesAlongPath();
+    }
+    List<Creep> onPath = new ArrayList<Creep>();
+    // Go backwards through the intervals, as the creeps furthest along come first
+    for (int i = coverage.getNumIntervals() - 1; i >= 0; i--) {
+      int from = firstIndexBelow(coverage.getTo(i), true);
+      int to = firstIndexBelow(coverage.getFrom(i), false);
+      for (int j = from; j < to; j++) {
+        onPath.add(alongPath.get(j));
+      }
+    }
+    return onPath;
+  }
+
+  private void findDistancesAlongPath() {
+    // The same list as the default order, which the scene keeps furthest along first
+    alongPath = sortedBy(furthestFirst);
+    distancesAlongPath = new double[alongPath.size()];
+    for (int i = 0; i < distancesAlongPath.length; i++) {
+      distancesAlongPath[i] = alongPath.get(i).getDistanceAlongPath();
+    }
+  }
+
+  /**
+   * The first index in distancesAlongPath, which is in descending order, with a distance less than
+   * distance, or equal to it too if orEqual.
+   */
+  private int firstIndexBelow(double distance, boolean orEqual) {
+    int low = 0;
+    int high = distancesAlongPath.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      double d = distancesAlongPath[mid];
+      if (d < distance || (orEqual && d == distance)) {
+        high = mid;
+      } else {
+        low = mid + 1;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import java.awt.Point;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+import towers.Tower;
+
+/**
+ * Splits the towers up into square cells by their centres, so the towers near a point can be found
+ * without going through all of them.
+ *
+ * <p>Towers don't move, so they're only added and removed as they're built and sold. It's used
+ * from both the game and the GUI, but the GUI's lookups are quick and the game rarely changes it,
+ * so it's just synchronized.
+ */
+public class TowerGrid {
+
+  // About the width of a tower, so each cell has only a few
+  private static final int cellWidth = 50;
+
+  private final int nColumns = (Constants.MAP_WIDTH + cellWidth - 1) / cellWidth;
+  private final int nRows = (Constants.MAP_HEIGHT + cellWidth - 1) / cellWidth;
+  // Indexed by row * nColumns + column
+  private final List<List<Tower>> cells = new ArrayList<List<Tower>>(nColumns * nRows);
+  // The furthest any part of a tower is from its centre, for all the towers added
+  private double maxReach = 0;
+
+  public TowerGrid() {
+    for (int i = 0; i < nColumns * nRows; i++) {
+      cells.add(new ArrayList<Tower>(1));
+    }
+  }
+
+  public synchronized void add(Tower t) {
+    cells.get(cellIndex(t.getCentre())).add(t);
+    maxReach = Math.max(maxReach, reach(t));
+  }
+
+  public synchronized void remove(Tower t) {
+    cells.get(cellIndex(t.getCentre())).remove(t);
+  }
+
+  public synchronized void clear() {
+    for (List<Tower> cell : cells) {
+      cell.clear();
+    }
+    maxReach = 0;
+  }
+
+  /** The tower with a pixel at p, or null if there isn't one. */
+  public synchronized Tower containing(Point p) {
+    for (Tower t : near(p, maxReach + 1)) {
+      if (t.contains(p)) {
+        return t;
+      }
+    }
+    return null;
+  }
+
+  /** Whether t clashes with any of the towers, so can't be built. */
+  public synchronized boolean clashesWithAny(Tower t) {
+    for (Tower other : near(t.getCentre(), maxReach + reach(t) + 1)) {
+      if (other.clashesWith(t)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The towers whose centres are less than radius from p. They're in the order of their cells, so
+   * the same towers are always found in the same order.
+   */
+  public synchronized List<Tower> near(Point2D p, double radius) {
+    List<Tower> near = new ArrayList<Tower>();
+    int minColumn = column(p.getX() - radius);
+    int maxColumn = column(p.getX() + radius);
+    int minRow = row(p.getY() - radius);
+    int maxRow = row(p.getY() + radius);
+    for (int row = minRow; row <= maxRow; row++) {
+      for (int column = minColumn; column <= maxColumn; column++) {
+        for (Tower t : cells.get(row * nColumns + column)) {
+          if (t.getCentre().distance(p) < radius) {
+            near.add(t);
+          }
+        }
+      }
+    }
+    return near;
+  }
+
+  private static double reach(Tower t) {
+    Rectangle2D r = t.getBounds().getBounds2D();
+    Point p = t.getCentre();
+    double dx = Math.max(p.getX() - r.getMinX(), r.getMaxX() - p.getX());
+    double dy = Math.max(p.getY() - r.getMinY(), r.getMaxY() - p.getY());
+    return Math.sqrt(dx * dx + dy * dy);
+  }
+
+  private int cellIndex(Point p) {
+    return row(p.getY()) * nColumns + column(p.getX());
+  }
+
+  // Anything off the map is put in the cells at its edges
+  private int column(double x) {
+    return Math.max(0, Math.min(nColumns - 1, (int) Math.floor(x / cellWidth)));
+  }
+
+  private int row(double y) {
+    return Math.max(0, Math.min(nRows - 1, (int) Math.floor(y / cellWidth)));
+  }
+}
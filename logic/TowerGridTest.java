@@ -0,0 +1,93 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package logic;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import towers.Tower;
+import towers.impl.BasicTower;
+
+public class TowerGridTest {
+
+  @Test
+  public void testNearFindsTheSameAsCheckingEveryTower() {
+    Random rand = new Random(3);
+    TowerGrid grid = new TowerGrid();
+    List<Tower> towers = new ArrayList<Tower>();
+    for (int i = 0; i < 100; i++) {
+      Tower t =
+          new BasicTower(
+              new Point(rand.nextInt(Constants.MAP_WIDTH), rand.nextInt(Constants.MAP_HEIGHT)));
+      towers.add(t);
+      grid.add(t);
+    }
+    for (int i = 0; i < 50; i++) {
+      grid.remove(towers.remove(rand.nextInt(towers.size())));
+    }
+    for (int i = 0; i < 100; i++) {
+      Point p = new Point(rand.nextInt(Constants.MAP_WIDTH), rand.nextInt(Constants.MAP_HEIGHT));
+      double radius = rand.nextDouble() * 300;
+      List<Tower> expected = new ArrayList<Tower>();
+      for (Tower t : towers) {
+        if (t.getCentre().distance(p) < radius) {
+          expected.add(t);
+        }
+      }
+      List<Tower> near = grid.near(p, radius);
+      assertEquals(expected.size(), near.size());
+      assertEquals(new HashSet<Tower>(expected), new HashSet<Tower>(near));
+    }
+  }
+
+  @Test
+  public void testClashesAndContainingFindTheSameAsCheckingEveryTower() {
+    Random rand = new Random(4);
+    TowerGrid grid = new TowerGrid();
+    List<Tower> towers = new ArrayList<Tower>();
+    for (int i = 0; i < 50; i++) {
+      Tower t =
+          new BasicTower(
+              new Point(rand.nextInt(Constants.MAP_WIDTH), rand.nextInt(Constants.MAP_HEIGHT)));
+      towers.add(t);
+      grid.add(t);
+    }
+    for (int i = 0; i < 1000; i++) {
+      Point p = new Point(rand.nextInt(Constants.MAP_WIDTH), rand.nextInt(Constants.MAP_HEIGHT));
+      Tower toBuild = new BasicTower(p);
+      boolean clashes = false;
+      Tower containing = null;
+      for (Tower t : towers) {
+        clashes |= t.clashesWith(toBuild);
+        if (containing == null && t.contains(p)) {
+          containing = t;
+        }
+      }
+      assertEquals(clashes, grid.clashesWithAny(toBuild));
+      // Towers can overlap here, so just check whether one was found
+      assertEquals(containing != null, grid.containing(p) != null);
+    }
+  }
+}
@@ -24,7 +24,10 @@ import creeps.Creep.DistanceComparator;
 import creeps.Creep.FirstComparator;
 import creeps.Creep.RandomComparator;
 import creeps.LooseFloat;
+import gui.Drawable;
+import images.CollisionMask;
 import images.ImageHelper;
+import images.SpriteCache;
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
 import java.awt.Color;
@@ -35,19 +38,26 @@ import java.awt.Rectangle;
 import java.awt.RenderingHints;
 import java.awt.Shape;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.AffineTransformOp;
 import java.awt.image.BufferedImage;
 import java.awt.image.BufferedImageOp;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import logic.Constants;
 import logic.Formulae;
+import logic.PathCoverage;
+import logic.PathTable;
+import logic.SortedCreeps;
 import util.Circle;
 import util.Helper;
 import util.Vector2D;
@@ -60,22 +70,26 @@ public abstract class AbstractTower implements Tower {
   protected static final double upgradeIncreaseFactor = 1.050001;
 
   public static final Comparator<Creep> DEFAULT_CREEP_COMPARATOR = new FirstComparator();
-
-  // Keep track of the loaded images so they are only loaded once
-  private static final Map<String, BufferedImage> towerImages = new HashMap<>();
-  private static final Map<String, BufferedImage> overlayImages = new HashMap<>();
-  private static final Map<String, BufferedImage> buttonImages = new HashMap<>();
-
-  private static final Map<Class<? extends AbstractTower>, Map<LooseFloat, BufferedImage>>
-      rotatedImages = new HashMap<Class<? extends AbstractTower>, Map<LooseFloat, BufferedImage>>();
+  // Bigger than any creep, so the path within range of this plus a tower's range has every creep
+  // that could be within the tower's range on it
+  private static final int maxCreepHalfWidth = 50;
+  // The range of angles that share a rotated image
+  private static final float anglePrecision = new TowerLooseFloat(0).getPrecision();
+
+  // The images and starting stats for each type of tower, so they are only loaded once
+  private static final Map<Class<? extends AbstractTower>, Blueprint> blueprints =
+      new ConcurrentHashMap<>();
+  // Copied for each new tower, as copying an EnumMap is quicker than filling one
+  private static final Map<Attribute, Double> baseFactors = createCurrentFactors();
+  private static final Map<Attribute, Integer> baseAttributeLevels = createAttributeLevels();
 
   public static final int turretThickness = 4;
 
   // Maps the ID of an aid tower to the aid factor it gives for each attribute
   private final Map<Integer, Map<Attribute, Double>> aidFactors = new HashMap<>();
-  private final Map<Attribute, Double> currentFactors = createCurrentFactors();
+  private final Map<Attribute, Double> currentFactors = new EnumMap<>(baseFactors);
 
-  private Map<Attribute, Integer> attributeLevels = createAttributeLevels();
+  private Map<Attribute, Integer> attributeLevels = new EnumMap<>(baseAttributeLevels);
 
   // The top left point of this tower
   private final Point topLeft;
@@ -89,6 +103,9 @@ public abstract class AbstractTower implements Tower {
   // The number of clock ticks until this tower's next shot
   private double timeToNextShot = 0;
   private double range;
+  // The parts of the path where a creep could be within range, and the range they're for
+  private PathCoverage pathCoverage;
+  private double pathCoverageRange;
   private final double rangeUpgrade;
   private int twiceRange;
   private double bulletSpeed;
@@ -105,6 +122,11 @@ public abstract class AbstractTower implements Tower {
   private final BufferedImage overlayImage;
   private final boolean imageRotates;
   private BufferedImage currentImage;
+  // Used to test whether a point is on the tower
+  private CollisionMask currentMask;
+  // Which of the ranges of angles that share an image the turret is pointing in, so the image is
+  // only looked up again when the turret turns into another one
+  private double currentAngleBucket;
   private final BufferedImage buttonImage;
 
   private boolean isSelected = false;
@@ -122,6 +144,9 @@ public abstract class AbstractTower implements Tower {
   // Defaults to FirstComparator
   private Comparator<Creep> creepComparator = DEFAULT_CREEP_COMPARATOR;
 
+  // Set when this tower is added to the game
+  private Random rand;
+
   protected AbstractTower(
       Point p,
       String name,
@@ -132,71 +157,76 @@ public abstract class AbstractTower implements Tower {
       int width,
       int turretWidth,
       boolean hasOverlay) {
-    this.width = width;
-    halfWidth = width / 2;
+    Blueprint blueprint = blueprints.get(getClass());
+    if (blueprint == null) {
+      // Made without holding a lock as loading the images takes a while. If another thread makes
+      // one at the same time, only the first one put in is used.
+      Blueprint made =
+          new Blueprint(
+              getClass(),
+              name,
+              fireRate,
+              range,
+              bulletSpeed,
+              damage,
+              width,
+              turretWidth,
+              hasOverlay);
+      blueprint = blueprints.putIfAbsent(getClass(), made);
+      if (blueprint == null) {
+        blueprint = made;
+      }
+    }
+    // The stats are shared by every tower of the type, so they must be made with the same ones
+    if (!blueprint.hasStats(
+        name, fireRate, range, bulletSpeed, damage, width, turretWidth, hasOverlay)) {
+      throw new IllegalArgumentException(
+          getClass().getSimpleName() + " must always be made with the same stats.");
+    }
+    this.width = blueprint.width;
+    halfWidth = this.width / 2;
     centre = new Point(p);
     topLeft = new Point((int) centre.getX() - halfWidth, (int) centre.getY() - halfWidth);
     bounds = new Circle(centre, halfWidth);
     setBounds(); // Sets the bounding rectangle
-    this.name = name;
-    this.fireRate = fireRate;
-    this.range = range;
-    twiceRange = (int) (range * 2);
-    rangeUpgrade = range * (upgradeIncreaseFactor - 1);
-    this.bulletSpeed = bulletSpeed;
-    bulletSpeedUpgrade = bulletSpeed * (upgradeIncreaseFactor - 1);
-    this.damage = damage;
-    this.turretWidth = turretWidth;
-    // Use the class name as the actual name could be anything
-    String className = getClass().getSimpleName();
-    // Need to remove the 'Tower' off the end
-    className = makeFirstCharacterLowerCase(className.substring(0, className.length() - 5));
-    baseImage = loadImage(towerImages, width, "towers", className + ".png");
-    imageRotates = hasOverlay && (turretWidth != 0);
-    overlayImage =
-        hasOverlay
-            ? loadImage(overlayImages, width, "towers", "overlays", className + "Overlay.png")
-            : null;
-    currentImage = overlayImage == null ? baseImage : getRotatedImage(0.0);
-    buttonImage = loadImage(buttonImages, 0, "buttons", "towers", className + "Button.png");
-  }
-
-  private String makeFirstCharacterLowerCase(String s) {
+    this.name = blueprint.name;
+    this.fireRate = blueprint.fireRate;
+    this.range = blueprint.range;
+    twiceRange = (int) (this.range * 2);
+    rangeUpgrade = this.range * (upgradeIncreaseFactor - 1);
+    this.bulletSpeed = blueprint.bulletSpeed;
+    bulletSpeedUpgrade = this.bulletSpeed * (upgradeIncreaseFactor - 1);
+    this.damage = blueprint.damage;
+    this.turretWidth = blueprint.turretWidth;
+    baseImage = blueprint.baseImage;
+    imageRotates = blueprint.imageRotates;
+    overlayImage = blueprint.overlayImage;
+    buttonImage = blueprint.buttonImage;
+    currentImage = blueprint.firstImage;
+    currentMask = blueprint.firstMask;
+    currentAngleBucket = angleBucket(0.0);
+  }
+
+  private static String makeFirstCharacterLowerCase(String s) {
     StringBuilder sb = new StringBuilder(s);
     sb.setCharAt(0, Character.toLowerCase(s.charAt(0)));
     return sb.toString();
   }
 
-  /** Flush the cache of rotated images. */
-  public static void flushImageCache() {
-    // Only clear this as normally it will be at least an order of magnitude greater than the
-    // other maps used for caching images.
-    rotatedImages.clear();
-  }
-
   @Override
-  public List<Bullet> tick(List<Creep> creeps, boolean levelInProgress) {
+  public List<Bullet> tick(SortedCreeps sortedCreeps, boolean levelInProgress) {
     // Decrements here so it's on every tick, not just when it is able to shoot
     if (timeToNextShot >= 0) {
       timeToNextShot--;
     }
     List<Bullet> fired = Collections.emptyList();
     if (imageRotates || timeToNextShot <= 0) {
-      // The creeps are sorted by the default creep comparator in Clock, so that they don't
-      // have to be resorted for any tower left on the default (which is often most of them)
-      if (!creepComparator.getClass().equals(DEFAULT_CREEP_COMPARATOR.getClass())) {
-        // Make a copy so it can be sorted
-        creeps = new ArrayList<Creep>(creeps);
-        if (creepComparator instanceof RandomComparator) {
-          Collections.shuffle(creeps);
-        } else {
-          Collections.sort(creeps, creepComparator);
-        }
-      }
-      // If the image rotates, this needs to be done to find out the direction to rotate to
-      fired = fireBullets(creeps);
+      List<Creep> creeps = findCandidates(sortedCreeps);
       if (timeToNextShot > 0) {
-        fired = Collections.emptyList();
+        // Can't shoot yet, but the image rotates so turn to what it would shoot at
+        aim(creeps);
+      } else {
+        fired = fireBullets(creeps);
       }
     }
     if (fired.size() > 0) {
@@ -216,6 +246,68 @@ public abstract class AbstractTower implements Tower {
     g.drawImage(currentImage, (int) topLeft.getX(), (int) topLeft.getY(), null);
   }
 
+  /**
+   * Creates drawables of the towers as they are now, drawn from a copy of their images, positions
+   * and, for a selected tower, range, so they can be drawn on another thread while the towers carry
+   * on turning and being upgraded. Towers that aren't AbstractTowers are drawn themselves.
+   */
+  public static List<Drawable> createDrawables(List<Tower> towers) {
+    List<Drawable> drawables = new ArrayList<Drawable>();
+    final BufferedImage[] images = new BufferedImage[towers.size()];
+    final int[] xs = new int[images.length];
+    final int[] ys = new int[images.length];
+    int num = 0;
+    for (Tower t : towers) {
+      if (t instanceof AbstractTower at && !at.isSelected) {
+        images[num] = at.currentImage;
+        xs[num] = at.topLeft.x;
+        ys[num] = at.topLeft.y;
+        num++;
+      } else if (t instanceof AbstractTower at) {
+        drawables.add(at.createSelectedDrawable());
+      } else {
+        drawables.add(t);
+      }
+    }
+    final int numTowers = num;
+    drawables.add(
+        new Drawable() {
+          @Override
+          public void draw(Graphics2D g) {
+            for (int i = 0; i < numTowers; i++) {
+              g.drawImage(images[i], xs[i], ys[i], null);
+            }
+          }
+
+          @Override
+          public ZCoordinate getZ() {
+            return ZCoordinate.Tower;
+          }
+        });
+    return drawables;
+  }
+
+  private Drawable createSelectedDrawable() {
+    final BufferedImage image = currentImage;
+    final int x = topLeft.x;
+    final int y = topLeft.y;
+    final Point rangeCentre = new Point(centre);
+    final double rangeNow = range;
+    final int twiceRangeNow = twiceRange;
+    return new Drawable() {
+      @Override
+      public void draw(Graphics2D g) {
+        drawRange(g, rangeCentre, rangeNow, twiceRangeNow);
+        g.drawImage(image, x, y, null);
+      }
+
+      @Override
+      public ZCoordinate getZ() {
+        return ZCoordinate.SelectedTower;
+      }
+    };
+  }
+
   @Override
   public void drawShadowAt(Graphics2D g, Point p, boolean validPlacement) {
     drawRange(g, p);
@@ -258,21 +350,43 @@ public abstract class AbstractTower implements Tower {
 
   @Override
   public boolean canBuild(List<Polygon> path) {
+    return canBuildAt(path, centre.x, centre.y);
+  }
+
+  @Override
+  public boolean canBuildAt(List<Polygon> path, int x, int y) {
+    // The same as checking whether bounds intersects any of the polygons, but as this is done for
+    // every pixel on the map, without making the bounds or the polygons' outlines
+    double radiusSq = halfWidth * halfWidth;
     for (Polygon p : path) {
-      if (bounds.intersects(p)) {
+      if (p.contains(x, y)) {
         return false;
       }
+      int[] xPoints = p.xpoints;
+      int[] yPoints = p.ypoints;
+      for (int i = 0, last = p.npoints - 1; i < p.npoints; last = i++) {
+        if (Line2D.ptSegDistSq(xPoints[last], yPoints[last], xPoints[i], yPoints[i], x, y)
+            < radiusSq) {
+          return false;
+        }
+      }
     }
     return true;
   }
 
+  @Override
+  public Footprint getFootprint() {
+    // Every tower is circular and can be built anywhere off the path, so only the size matters
+    return new Footprint(AbstractTower.class, halfWidth);
+  }
+
   @Override
   public boolean contains(Point p) {
     if (boundingRectangle.contains(p)) {
       int x = (int) (p.getX() - centre.getX() + halfWidth);
       int y = (int) (p.getY() - centre.getY() + halfWidth);
       // Only counts as a hit if the pixel has something in it, isn't completely transparent
-      return !ImageHelper.isCompletelyTransparent(currentImage, x, y);
+      return currentMask.isSet(x, y);
     }
     return false;
   }
@@ -391,15 +505,7 @@ public abstract class AbstractTower implements Tower {
 
   @Override
   public Tower constructNew(Point p) {
-    try {
-      return this.getClass().getConstructor(Point.class).newInstance(p);
-    } catch (Exception e) {
-      // No exception should be thrown if the superclass is reasonably behaved
-      throw new RuntimeException(
-          "\nSuperclass of AbstractTower is not well behaved.\n"
-              + e
-              + " was thrown.\n Either fix this, or override constructNew()");
-    }
+    return BuildableTypes.getFactory(getClass()).apply(p);
   }
 
   @Override
@@ -452,6 +558,11 @@ public abstract class AbstractTower implements Tower {
     return buttonImage;
   }
 
+  @Override
+  public void setRandom(Random rand) {
+    this.rand = rand;
+  }
+
   @Override
   public void setCreepComparator(Comparator<Creep> c) {
     if (c instanceof DistanceComparator) {
@@ -491,6 +602,10 @@ public abstract class AbstractTower implements Tower {
     return timeToNextShot;
   }
 
+  protected Random getRandom() {
+    return rand;
+  }
+
   protected abstract String getSpecial();
 
   protected abstract String getSpecialName();
@@ -514,6 +629,63 @@ public abstract class AbstractTower implements Tower {
     return Collections.emptyList();
   }
 
+  /**
+   * Finds the creeps that could be in range, in the order this tower targets them. Only these are
+   * looked at, as on long paths most creeps aren't in range of most towers.
+   */
+  private List<Creep> findCandidates(SortedCreeps sortedCreeps) {
+    boolean fitCoverage = sortedCreeps.getMaxHalfWidth() <= maxCreepHalfWidth;
+    if (fitCoverage && getPathCoverage(sortedCreeps.getPath()).isEmpty()) {
+      // Can't reach the path, so there's nothing to look for
+      return Collections.emptyList();
+    }
+    List<Creep> creeps;
+    if (creepComparator instanceof RandomComparator) {
+      // Each tower shuffles its own list, so they don't all pick the same creeps
+      creeps =
+          fitCoverage
+              ? sortedCreeps.onPath(pathCoverage)
+              : sortedCreeps.near(DEFAULT_CREEP_COMPARATOR, centre, range);
+      Collections.shuffle(creeps, rand);
+    } else if (creepComparator instanceof DistanceComparator) {
+      // Depends on where this tower is, so can't be shared
+      creeps =
+          fitCoverage
+              ? sortedCreeps.onPath(pathCoverage)
+              : sortedCreeps.near(DEFAULT_CREEP_COMPARATOR, centre, range);
+      Collections.sort(creeps, creepComparator);
+    } else if (fitCoverage && creepComparator.getClass() == DEFAULT_CREEP_COMPARATOR.getClass()) {
+      // Already furthest along the path first
+      creeps = sortedCreeps.onPath(pathCoverage);
+    } else {
+      // Sorted once for every tower using the same type of comparator
+      creeps = sortedCreeps.near(creepComparator, centre, range);
+    }
+    return creeps;
+  }
+
+  /** Gets the parts of the path within range, working them out again if the range has changed. */
+  private PathCoverage getPathCoverage(PathTable path) {
+    if (pathCoverage == null || pathCoverageRange != range) {
+      pathCoverage = PathCoverage.of(path, centre, range + maxCreepHalfWidth);
+      pathCoverageRange = range;
+    }
+    return pathCoverage;
+  }
+
+  /**
+   * Turns the turret to the creep {@link #fireBullets} would shoot at, without making any bullets.
+   * This is done on the ticks the tower can't shoot on, when its image rotates.
+   */
+  protected void aim(List<Creep> creeps) {
+    for (Creep c : creeps) {
+      if (checkDistance(c)) {
+        rotateTurret(Vector2D.createFromPoints(centre, c.getPosition()));
+        return;
+      }
+    }
+  }
+
   protected boolean checkDistance(Creep c) {
     return checkDistance(c, centre, range);
   }
@@ -547,11 +719,28 @@ public abstract class AbstractTower implements Tower {
       double damage) {
     Vector2D dir = Vector2D.createFromPoints(p, c.getPosition());
     if (imageRotates && rotateTurret) {
-      currentImage = getRotatedImage(Vector2D.angle(dir.getX(), -dir.getY()));
+      rotateTurret(dir);
     }
     return makeBullets(dir, turretWidth, (int) range, bulletSpeed, damage, p, c);
   }
 
+  private void rotateTurret(Vector2D dir) {
+    double angle = Vector2D.angle(dir.getX(), -dir.getY());
+    double bucket = angleBucket(angle);
+    if (bucket == currentAngleBucket) {
+      return;
+    }
+    RotatedSprite sprite = getRotatedSprite(angle);
+    currentImage = sprite.image;
+    currentMask = sprite.mask;
+    currentAngleBucket = bucket;
+  }
+
+  /** The same as the value of a TowerLooseFloat for the angle, without making one. */
+  private static double angleBucket(double angle) {
+    return Math.floor((float) angle / anglePrecision);
+  }
+
   protected void upgradeDamage() {
     damage *= upgradeIncreaseFactor;
   }
@@ -571,19 +760,8 @@ public abstract class AbstractTower implements Tower {
 
   protected abstract void upgradeSpecial();
 
-  private BufferedImage loadImage(Map<String, BufferedImage> map, int width, String... imagePath) {
-    String imageName = imagePath[imagePath.length - 1];
-    if (!map.containsKey(imageName)) {
-      if (width <= 0) {
-        map.put(imageName, ImageHelper.loadImage(imagePath));
-      } else {
-        map.put(imageName, ImageHelper.loadImage(width, width, imagePath));
-      }
-    }
-    return map.get(imageName);
-  }
-
-  private BufferedImage drawOverlayOnBaseImage(double angle) {
+  private static BufferedImage drawOverlayOnBaseImage(
+      BufferedImage baseImage, BufferedImage overlayImage, int width, double angle) {
     BufferedImage image = new BufferedImage(width, width, BufferedImage.TYPE_INT_ARGB_PRE);
 
     Graphics2D g = image.createGraphics();
@@ -612,6 +790,10 @@ public abstract class AbstractTower implements Tower {
   }
 
   private void drawRange(Graphics2D g, Point p) {
+    drawRange(g, p, range, twiceRange);
+  }
+
+  private static void drawRange(Graphics2D g, Point p, double range, int twiceRange) {
     int topLeftRangeX = (int) (p.getX() - range);
     int topLeftRangeY = (int) (p.getY() - range);
 
@@ -659,7 +841,7 @@ public abstract class AbstractTower implements Tower {
     }
   }
 
-  private Map<Attribute, Double> createCurrentFactors() {
+  private static Map<Attribute, Double> createCurrentFactors() {
     Map<Attribute, Double> map = new EnumMap<Attribute, Double>(Attribute.class);
     for (Attribute a : Attribute.values()) {
       if (a != Attribute.Special) {
@@ -669,30 +851,43 @@ public abstract class AbstractTower implements Tower {
     return map;
   }
 
-  private BufferedImage getRotatedImage(double angle) {
-    if (!rotatedImages.containsKey(getClass())) {
-      rotatedImages.put(getClass(), new HashMap<LooseFloat, BufferedImage>());
+  /**
+   * Draws the turret of this type of tower pointing every way, so it isn't done while the towers
+   * are turning. Does nothing if the turret doesn't rotate, and stops early if the thread is
+   * interrupted.
+   */
+  public void prerenderRotations() {
+    if (!imageRotates) {
+      return;
     }
-    Map<LooseFloat, BufferedImage> m = rotatedImages.get(getClass());
-    // Use LooseFloat to reduce precision so rotated images are less likely to be duplicated
-    LooseFloat f =
-        new LooseFloat(angle) {
-          @Override
-          public float getPrecision() {
-            // Watch out with decreasing this, while it may improve the quality, because images are
-            // cached it can increase the memory use significantly
-            // I'd prefer to have it a bit lower, but the reduced range of angle is almost
-            // unnoticeable at this setting.
-            return 0.09F;
-          }
-        };
-    if (!m.containsKey(f)) {
-      m.put(f, drawOverlayOnBaseImage(angle));
+    for (int i = 0; i * anglePrecision < 2 * Math.PI; i++) {
+      if (Thread.currentThread().isInterrupted()) {
+        return;
+      }
+      // The middle of each range of angles that share an image
+      getRotatedSprite((i + 0.5) * anglePrecision);
     }
-    return m.get(f);
   }
 
-  private Map<Attribute, Integer> createAttributeLevels() {
+  private RotatedSprite getRotatedSprite(double angle) {
+    return getRotatedSprite(getClass(), baseImage, overlayImage, width, angle);
+  }
+
+  private static RotatedSprite getRotatedSprite(
+      Class<?> type,
+      BufferedImage baseImage,
+      BufferedImage overlayImage,
+      int width,
+      double angle) {
+    // Use LooseFloat to reduce precision so rotated images are less likely to be duplicated
+    return SpriteCache.getShared()
+        .get(
+            Arrays.asList(type, new TowerLooseFloat(angle)),
+            () -> new RotatedSprite(drawOverlayOnBaseImage(baseImage, overlayImage, width, angle)),
+            sprite -> SpriteCache.sizeOf(sprite.image) + sprite.mask.getBytes());
+  }
+
+  private static Map<Attribute, Integer> createAttributeLevels() {
     Map<Attribute, Integer> map = new EnumMap<Attribute, Integer>(Attribute.class);
     for (Attribute a : Attribute.values()) {
       // All levels start at 1
@@ -727,4 +922,112 @@ public abstract class AbstractTower implements Tower {
           "turret" + i + ".png");
     }
   }
+
+  /** The images and starting stats shared by every tower of one type. */
+  private static final class Blueprint {
+    final String name;
+    final int fireRate;
+    final double range;
+    final double bulletSpeed;
+    final double damage;
+    final int width;
+    final int turretWidth;
+    final boolean hasOverlay;
+    final boolean imageRotates;
+    final BufferedImage baseImage;
+    // Null if the type has no overlay
+    final BufferedImage overlayImage;
+    final BufferedImage buttonImage;
+    // The image every new tower of this type starts with, and its mask
+    final BufferedImage firstImage;
+    final CollisionMask firstMask;
+
+    Blueprint(
+        Class<? extends AbstractTower> type,
+        String name,
+        int fireRate,
+        double range,
+        double bulletSpeed,
+        double damage,
+        int width,
+        int turretWidth,
+        boolean hasOverlay) {
+      this.name = name;
+      this.fireRate = fireRate;
+      this.range = range;
+      this.bulletSpeed = bulletSpeed;
+      this.damage = damage;
+      this.width = width;
+      this.turretWidth = turretWidth;
+      this.hasOverlay = hasOverlay;
+      imageRotates = hasOverlay && (turretWidth != 0);
+      // Use the class name as the actual name could be anything
+      String className = type.getSimpleName();
+      // Need to remove the 'Tower' off the end
+      className = makeFirstCharacterLowerCase(className.substring(0, className.length() - 5));
+      baseImage = ImageHelper.loadImage(width, width, "towers", className + ".png");
+      overlayImage =
+          hasOverlay
+              ? ImageHelper.loadImage(width, width, "towers", "overlays", className + "Overlay.png")
+              : null;
+      buttonImage = ImageHelper.loadImage("buttons", "towers", className + "Button.png");
+      if (overlayImage == null) {
+        firstImage = baseImage;
+        firstMask = CollisionMask.forImage(baseImage);
+      } else {
+        RotatedSprite sprite = getRotatedSprite(type, baseImage, overlayImage, width, 0.0);
+        firstImage = sprite.image;
+        firstMask = sprite.mask;
+      }
+    }
+
+    boolean hasStats(
+        String name,
+        int fireRate,
+        double range,
+        double bulletSpeed,
+        double damage,
+        int width,
+        int turretWidth,
+        boolean hasOverlay) {
+      return this.name.equals(name)
+          && this.fireRate == fireRate
+          && this.range == range
+          && this.bulletSpeed == bulletSpeed
+          && this.damage == damage
+          && this.width == width
+          && this.turretWidth == turretWidth
+          && this.hasOverlay == hasOverlay;
+    }
+  }
+
+  /**
+   * A turret pointing one way and its mask, kept together so turning the turret doesn't have to
+   * look the mask up separately.
+   */
+  private static final class RotatedSprite {
+    final BufferedImage image;
+    final CollisionMask mask;
+
+    RotatedSprite(BufferedImage image) {
+      this.image = image;
+      this.mask = CollisionMask.forImage(image);
+    }
+  }
+
+  private static class TowerLooseFloat extends LooseFloat {
+
+    public TowerLooseFloat(double d) {
+      super(d);
+    }
+
+    @Override
+    protected float getPrecision() {
+      // Watch out with decreasing this, while it may improve the quality, because images are
+      // cached it can increase the memory use significantly
+      // I'd prefer to have it a bit lower, but the reduced range of angle is almost
+      // unnoticeable at this setting.
+      return 0.09F;
+    }
+  }
 }
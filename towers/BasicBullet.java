@@ -27,6 +27,9 @@ import java.awt.Point;
 import java.awt.geom.Line2D;
 import java.awt.geom.Point2D;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import logic.Constants;
 import logic.CreepGrid;
 import util.Vector2D;
@@ -37,7 +40,7 @@ public class BasicBullet extends AbstractBullet {
   private static final int radius = 3;
   // Extra distance a bullet can be off screen before it is removed. Should be greater than the
   // radius of the largest creep and the radius of the bullet
-  private static final int offScreenFudgeDistance = 50 + radius;
+  static final int offScreenFudgeDistance = 50 + radius;
 
   // The direction of the bullet, first is dx, second is dy. Should be normalised
   // then multiplied by the speed.
@@ -53,6 +56,14 @@ public class BasicBullet extends AbstractBullet {
   private static final BufferedImage image =
       ImageHelper.loadImage(radius * 2, radius * 2, "other", "bullet.png");
 
+  // Set by prepareTick, and used by the next tick
+  private boolean prepared = false;
+  private boolean preparedOffScreen;
+  private boolean preparedOutOfRange;
+  // The creeps the bullet's movement intersected (if they're still alive), and where
+  private List<Creep> preparedCreeps = Collections.emptyList();
+  private List<Point2D> preparedPoints = Collections.emptyList();
+
   /**
    * Creates a new BasicBuller with fields set, but tick and draw methods must be overrided.
    *
@@ -91,18 +102,80 @@ public class BasicBullet extends AbstractBullet {
 
   @Override
   public final double tick(CreepGrid creeps) {
-    double tick = doTick(creeps);
+    double tick = prepared ? finishPreparedTick(creeps) : doTick(creeps);
     draw = tick < 0;
     return tick;
   }
 
+  /**
+   * Whether {@link #prepareTick} can be used for this bullet, which needs it to tick exactly as a
+   * BasicBullet does. A subclass that only overrides {@link #specialOnHit}, which is done in tick,
+   * can override this to return true.
+   */
+  public boolean canPrepareTick() {
+    return getClass() == BasicBullet.class;
+  }
+
+  /**
+   * Does the part of the next tick that doesn't change anything other than this bullet, that is
+   * moving it and working out which creeps it would hit. This means it can be done for many
+   * bullets in parallel.
+   *
+   * <p>The next call to tick hits the first of those creeps that is still alive, so the result is
+   * exactly the same as if tick had been called without this.
+   */
+  public void prepareTick(CreepGrid creeps) {
+    prepared = true;
+    preparedCreeps = Collections.emptyList();
+    preparedPoints = Collections.emptyList();
+    preparedOffScreen = canBulletBeRemovedAsOffScreen();
+    if (preparedOffScreen) {
+      return;
+    }
+    preparedOutOfRange = move();
+    Line2D line = new Line2D.Double(lastPosition, position);
+    for (Creep c : creeps.filter(line)) {
+      Point2D p = c.intersects(line);
+      if (p != null) {
+        if (preparedCreeps.isEmpty()) {
+          preparedCreeps = new ArrayList<Creep>(1);
+          preparedPoints = new ArrayList<Point2D>(1);
+        }
+        preparedCreeps.add(c);
+        preparedPoints.add(p);
+      }
+    }
+  }
+
+  private double finishPreparedTick(CreepGrid creeps) {
+    prepared = false;
+    if (preparedOffScreen) {
+      return 0;
+    }
+    double result = -1;
+    for (int i = 0; i < preparedCreeps.size() && result < 0; i++) {
+      // A creep that was hit before this bullet's turn is dead, and this returns -1
+      result = hit(preparedCreeps.get(i), preparedPoints.get(i), creeps);
+    }
+    if (preparedOutOfRange) {
+      // Bullet has exceeded range so should be removed no matter what
+      return result > 0 ? result : 0;
+    }
+    return result;
+  }
+
   @Override
   public void draw(Graphics2D g) {
     if (draw && !checkIfBulletIsOffScreen()) {
-      g.drawImage(image, (int) position.getX() - radius, (int) position.getY() - radius, null);
+      draw(g, position.getX(), position.getY());
     }
   }
 
+  /** Draws a basic bullet at x, y. */
+  static void draw(Graphics2D g, double x, double y) {
+    g.drawImage(image, (int) x - radius, (int) y - radius, null);
+  }
+
   public static double processDamageReport(DamageReport d, Tower t) {
     if (d == null) {
       return 0;
@@ -139,16 +212,25 @@ public class BasicBullet extends AbstractBullet {
     for (Creep c : creeps.filter(line)) {
       Point2D p = c.intersects(line);
       if (p != null) {
-        DamageReport d = c.hit(damage, shotBy.getClass());
-        if (d != null) { // Creep is not already dead, may happen due to threading
-          specialOnHit(p, c, creeps);
-          return processDamageReport(d);
+        double result = hit(c, p, creeps);
+        if (result >= 0) {
+          return result;
         }
       }
     }
     return -1;
   }
 
+  /** Hits c at p, returning the money earned, or -1 if the creep was already dead. */
+  private double hit(Creep c, Point2D p, CreepGrid creeps) {
+    DamageReport d = c.hit(damage, shotBy.getClass());
+    if (d == null) { // Creep is already dead, may happen due to threading
+      return -1;
+    }
+    specialOnHit(p, c, creeps);
+    return processDamageReport(d);
+  }
+
   /**
    * To be overriden by subclasses whose bullets do something special on a hit
    *
@@ -174,11 +256,14 @@ public class BasicBullet extends AbstractBullet {
   }
 
   protected boolean checkIfBulletIsOffScreen(Point2D p) {
-    int fudgeDistance = getOffScreenFudgeDistance();
-    return p.getX() < -fudgeDistance
-        || p.getY() < -fudgeDistance
-        || p.getX() > Constants.MAP_WIDTH + fudgeDistance
-        || p.getY() > Constants.MAP_HEIGHT + fudgeDistance;
+    return isOffScreen(p.getX(), p.getY(), getOffScreenFudgeDistance());
+  }
+
+  static boolean isOffScreen(double x, double y, int fudgeDistance) {
+    return x < -fudgeDistance
+        || y < -fudgeDistance
+        || x > Constants.MAP_WIDTH + fudgeDistance
+        || y > Constants.MAP_HEIGHT + fudgeDistance;
   }
 
   protected int getOffScreenFudgeDistance() {
@@ -189,6 +274,21 @@ public class BasicBullet extends AbstractBullet {
     if (canBulletBeRemovedAsOffScreen()) {
       return 0;
     }
+    if (move()) {
+      double result = checkIfCreepIsHit(creeps);
+      // Bullet has exceeded range so should be removed no matter what
+      return result > 0 ? result : 0;
+    } else {
+      return checkIfCreepIsHit(creeps);
+    }
+  }
+
+  /**
+   * Moves the bullet along by its speed, or only to the end of its range.
+   *
+   * @return true if the bullet is now out of range
+   */
+  private boolean move() {
     distanceTravelled += speed;
     lastPosition.setLocation(position);
     if (isOutOfRange()) { // Check if it's now out of range
@@ -196,12 +296,10 @@ public class BasicBullet extends AbstractBullet {
       position.setLocation(
           position.getX() + extraFraction * dir.getX(),
           position.getY() + extraFraction * dir.getY());
-      double result = checkIfCreepIsHit(creeps);
-      // Bullet has exceeded range so should be removed no matter what
-      return result > 0 ? result : 0;
+      return true;
     } else {
       position.setLocation(position.getX() + dir.getX(), position.getY() + dir.getY());
-      return checkIfCreepIsHit(creeps);
+      return false;
     }
   }
 
@@ -0,0 +1,269 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package towers;
+
+import creeps.Creep;
+import creeps.Creep.DamageReport;
+import gui.Drawable;
+import java.awt.Graphics2D;
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import logic.CreepGrid;
+
+/**
+ * Holds plain {@link BasicBullet}s, which make up most of the bullets late in the game, in arrays
+ * rather than as objects.
+ *
+ * <p>A tick is done in two parts, like {@link BasicBullet#prepareTick} and {@link
+ * BasicBullet#tick}. First each bullet is moved and the creeps it intersects are found, which can be
+ * done for different ranges of bullets at the same time. Then the bullets hit the first of their
+ * creeps that is still alive, one at a time.
+ *
+ * <p>The bullets are kept in the order they were added, and each has a number counting the bullets
+ * added before it, so they can be ticked in between other bullets in the order they were all fired
+ * using {@link #tickAddedBefore}.
+ */
+public class BasicBulletPool {
+
+  private static final int initialCapacity = 256;
+
+  private int size = 0;
+  private long numAdded = 0;
+  // Used during a tick, the next bullet to tick and where it's moved to if it's not finished
+  private int nextToTick = 0;
+  private int numRemaining = 0;
+  private long[] number = new long[initialCapacity];
+  private double[] x = new double[initialCapacity];
+  private double[] y = new double[initialCapacity];
+  // Already multiplied by the speed
+  private double[] dx = new double[initialCapacity];
+  private double[] dy = new double[initialCapacity];
+  private double[] speed = new double[initialCapacity];
+  private double[] distance = new double[initialCapacity];
+  private double[] range = new double[initialCapacity];
+  private double[] damage = new double[initialCapacity];
+  private Tower[] shotBy = new Tower[initialCapacity];
+  // Set by prepareTick, true if the bullet was off screen so should be removed
+  private boolean[] offScreen = new boolean[initialCapacity];
+  // Set by prepareTick, the creeps the bullet intersected, or null if none
+  private Creep[][] targets = new Creep[initialCapacity][];
+
+  /** Whether b is a plain BasicBullet, and so can be added to a pool. */
+  public static boolean canAdd(Bullet b) {
+    return b.getClass() == BasicBullet.class;
+  }
+
+  /** Adds the bullet, which must be a plain BasicBullet, after which the object isn't needed. */
+  public void add(BasicBullet b) {
+    if (!canAdd(b)) {
+      throw new IllegalArgumentException(b + " is not a plain BasicBullet.");
+    }
+    if (size == x.length) {
+      grow();
+    }
+    x[size] = b.position.getX();
+    y[size] = b.position.getY();
+    dx[size] = b.dir.getX();
+    dy[size] = b.dir.getY();
+    speed[size] = b.speed;
+    distance[size] = b.distanceTravelled;
+    range[size] = b.range;
+    damage[size] = b.damage;
+    shotBy[size] = b.shotBy;
+    number[size] = numAdded++;
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** The number of bullets that have been added, which is the number the next one will get. */
+  public long getNumAdded() {
+    return numAdded;
+  }
+
+  public void clear() {
+    Arrays.fill(shotBy, 0, size, null);
+    Arrays.fill(targets, 0, size, null);
+    size = 0;
+    numAdded = 0;
+    nextToTick = 0;
+    numRemaining = 0;
+  }
+
+  /**
+   * Moves the bullets from index from (inclusive) to index to (exclusive), and finds the creeps
+   * they intersect. This doesn't change anything but those bullets, so can be done for separate
+   * ranges on separate threads.
+   */
+  public void prepareTick(CreepGrid creeps, int from, int to) {
+    // Reuse the line, as this is by far the most common thing done with it
+    Line2D line = new Line2D.Double();
+    for (int i = from; i < to; i++) {
+      offScreen[i] = BasicBullet.isOffScreen(x[i], y[i], BasicBullet.offScreenFudgeDistance);
+      if (offScreen[i]) {
+        continue;
+      }
+      double lastX = x[i];
+      double lastY = y[i];
+      distance[i] += speed[i];
+      if (distance[i] > range[i]) { // Check if it's now out of range
+        double extraFraction = (distance[i] - range[i]) / speed[i];
+        x[i] += extraFraction * dx[i];
+        y[i] += extraFraction * dy[i];
+      } else {
+        x[i] += dx[i];
+        y[i] += dy[i];
+      }
+      line.setLine(lastX, lastY, x[i], y[i]);
+      List<Creep> intersecting = null;
+      for (Creep c : creeps.filter(line)) {
+        if (c.intersects(line) != null) {
+          if (intersecting == null) {
+            intersecting = new ArrayList<Creep>(1);
+          }
+          intersecting.add(c);
+        }
+      }
+      targets[i] = intersecting == null ? null : intersecting.toArray(new Creep[0]);
+    }
+  }
+
+  /**
+   * Finishes the tick of the bullets that haven't been ticked yet this tick and were added before
+   * the bullet numbered number, once {@link #prepareTick} has been done for all of them. This lets
+   * bullets that aren't in the pool be ticked in between, in the order they were fired, so the same
+   * bullets hit creeps first. {@link #tick} must be called after to finish the rest.
+   *
+   * @return the money earned
+   */
+  public double tickAddedBefore(long number) {
+    double moneyEarned = 0;
+    while (nextToTick < size && this.number[nextToTick] < number) {
+      int i = nextToTick++;
+      double result = offScreen[i] ? 0 : hit(i);
+      if (result < 0 && distance[i] > range[i]) {
+        // Bullet has exceeded range so should be removed no matter what
+        result = 0;
+      }
+      targets[i] = null;
+      if (result >= 0) {
+        moneyEarned += result;
+      } else {
+        // Move the remaining bullets down over the finished ones, keeping them in order
+        move(i, numRemaining++);
+      }
+    }
+    return moneyEarned;
+  }
+
+  /**
+   * Finishes the tick of every bullet that hasn't been ticked by {@link #tickAddedBefore}, and
+   * removes those that are finished.
+   *
+   * @return the money earned
+   */
+  public double tick() {
+    double moneyEarned = tickAddedBefore(Long.MAX_VALUE);
+    Arrays.fill(shotBy, numRemaining, size, null);
+    size = numRemaining;
+    nextToTick = 0;
+    numRemaining = 0;
+    return moneyEarned;
+  }
+
+  /**
+   * Creates a drawable of the current positions of up to max of the bullets, chosen at random if
+   * there's more than that.
+   */
+  public Drawable createDrawable(int max, Random rand) {
+    int num = Math.min(max, size);
+    final float[] xs = new float[num];
+    final float[] ys = new float[num];
+    for (int i = 0; i < num; i++) {
+      int index = num < size ? rand.nextInt(size) : i;
+      xs[i] = (float) x[index];
+      ys[i] = (float) y[index];
+    }
+    return new Drawable() {
+      @Override
+      public void draw(Graphics2D g) {
+        for (int i = 0; i < xs.length; i++) {
+          BasicBullet.draw(g, xs[i], ys[i]);
+        }
+      }
+
+      @Override
+      public ZCoordinate getZ() {
+        return ZCoordinate.Bullet;
+      }
+    };
+  }
+
+  private double hit(int i) {
+    Creep[] creeps = targets[i];
+    if (creeps != null) {
+      for (Creep c : creeps) {
+        DamageReport d = c.hit(damage[i], shotBy[i].getClass());
+        // The creep may have been killed by an earlier bullet this tick
+        if (d != null) {
+          return BasicBullet.processDamageReport(d, shotBy[i]);
+        }
+      }
+    }
+    return -1;
+  }
+
+  private void move(int from, int to) {
+    if (from == to) {
+      return;
+    }
+    x[to] = x[from];
+    y[to] = y[from];
+    dx[to] = dx[from];
+    dy[to] = dy[from];
+    speed[to] = speed[from];
+    distance[to] = distance[from];
+    range[to] = range[from];
+    damage[to] = damage[from];
+    shotBy[to] = shotBy[from];
+    number[to] = number[from];
+  }
+
+  private void grow() {
+    int capacity = x.length * 2;
+    x = Arrays.copyOf(x, capacity);
+    y = Arrays.copyOf(y, capacity);
+    dx = Arrays.copyOf(dx, capacity);
+    dy = Arrays.copyOf(dy, capacity);
+    speed = Arrays.copyOf(speed, capacity);
+    distance = Arrays.copyOf(distance, capacity);
+    range = Arrays.copyOf(range, capacity);
+    damage = Arrays.copyOf(damage, capacity);
+    shotBy = Arrays.copyOf(shotBy, capacity);
+    offScreen = Arrays.copyOf(offScreen, capacity);
+    targets = Arrays.copyOf(targets, capacity);
+    number = Arrays.copyOf(number, capacity);
+  }
+}
@@ -29,6 +29,14 @@ public interface Buildable {
 
   public boolean canBuild(List<Polygon> path);
 
+  /**
+   * The same as canBuild would be for this type of building with its centre at x, y, but without
+   * making one. This should only depend on the polygons that overlap the square of its footprint.
+   */
+  public boolean canBuildAt(List<Polygon> path, int x, int y);
+
+  public Footprint getFootprint();
+
   public Buildable constructNew(Point p);
 
   public void drawShadowAt(Graphics2D g, Point p, boolean validPlacement);
@@ -0,0 +1,152 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package towers;
+
+import java.awt.Point;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import towers.impl.AidTower;
+import towers.impl.BeamTower;
+import towers.impl.BomberTower;
+import towers.impl.ChargeTower;
+import towers.impl.CircleTower;
+import towers.impl.FreezeTower;
+import towers.impl.HomingTower;
+import towers.impl.JumperTower;
+import towers.impl.LaserTower;
+import towers.impl.MultiShotTower;
+import towers.impl.OmnidirectionalTower;
+import towers.impl.PoisonTower;
+import towers.impl.ScatterTower;
+import towers.impl.SlowLengthTower;
+import towers.impl.WaveTower;
+import towers.impl.WeakenTower;
+import towers.impl.ZapperTower;
+
+/**
+ * The types of buildings in the game, and how to make each of them at a point.
+ *
+ * <p>Buildings are made with these rather than by finding their constructor with reflection each
+ * time. Types that aren't registered here (e.g. in tests) get a factory made from their public
+ * constructor that takes a Point, which is looked up once.
+ */
+public final class BuildableTypes {
+
+  // By class name, in the order the buttons are shown
+  private static final Map<String, Function<Point, ? extends Buildable>> factories =
+      new LinkedHashMap<>();
+
+  static {
+    register(BomberTower.class, BomberTower::new);
+    register(SlowLengthTower.class, SlowLengthTower::new);
+    register(FreezeTower.class, FreezeTower::new);
+    register(JumperTower.class, JumperTower::new);
+    register(CircleTower.class, CircleTower::new);
+    register(ScatterTower.class, ScatterTower::new);
+    register(MultiShotTower.class, MultiShotTower::new);
+    register(LaserTower.class, LaserTower::new);
+    register(PoisonTower.class, PoisonTower::new);
+    register(OmnidirectionalTower.class, OmnidirectionalTower::new);
+    register(WeakenTower.class, WeakenTower::new);
+    register(WaveTower.class, WaveTower::new);
+    register(HomingTower.class, HomingTower::new);
+    register(ChargeTower.class, ChargeTower::new);
+    register(ZapperTower.class, ZapperTower::new);
+    register(BeamTower.class, BeamTower::new);
+    register(AidTower.class, AidTower::new);
+    register(Ghost.class, Ghost::new);
+  }
+
+  private static final List<String> gameTypes =
+      Collections.unmodifiableList(new ArrayList<String>(factories.keySet()));
+
+  private BuildableTypes() {}
+
+  /** Makes a new building of each type used in the game, in the order the buttons are shown. */
+  public static List<Buildable> createAll() {
+    List<Buildable> buildables = new ArrayList<Buildable>(gameTypes.size());
+    for (String className : gameTypes) {
+      buildables.add(create(className, new Point()));
+    }
+    return buildables;
+  }
+
+  /** Makes a new building of the type with the given class name, centred on p. */
+  public static Buildable create(String className, Point p) {
+    Function<Point, ? extends Buildable> factory;
+    synchronized (factories) {
+      factory = factories.get(className);
+    }
+    if (factory == null) {
+      try {
+        factory = getFactory(Class.forName(className).asSubclass(Buildable.class));
+      } catch (ClassNotFoundException | ClassCastException e) {
+        throw new IllegalArgumentException(className + " is not a type of building.", e);
+      }
+    }
+    return factory.apply(p);
+  }
+
+  /** Gets the factory for the type, making it from its constructor if it isn't registered. */
+  @SuppressWarnings("unchecked")
+  public static <T extends Buildable> Function<Point, T> getFactory(Class<T> type) {
+    synchronized (factories) {
+      Function<Point, ? extends Buildable> factory = factories.get(type.getName());
+      if (factory == null) {
+        factory = makeFactory(type);
+        factories.put(type.getName(), factory);
+      }
+      return (Function<Point, T>) factory;
+    }
+  }
+
+  private static <T extends Buildable> void register(Class<T> type, Function<Point, T> factory) {
+    factories.put(type.getName(), factory);
+  }
+
+  private static <T extends Buildable> Function<Point, T> makeFactory(Class<T> type) {
+    MethodHandle constructor;
+    try {
+      constructor =
+          MethodHandles.publicLookup()
+              .findConstructor(type, MethodType.methodType(void.class, Point.class));
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException(
+          type + " has no public constructor that takes a Point, so it must be registered.", e);
+    }
+    return p -> {
+      try {
+        return type.cast(constructor.invoke(p));
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable t) {
+        throw new RuntimeException(t);
+      }
+    };
+  }
+}
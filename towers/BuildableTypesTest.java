@@ -0,0 +1,44 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+
+package towers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+import java.awt.Point;
+import org.junit.Test;
+
+public class BuildableTypesTest {
+
+  @Test
+  public void testConstructNew() {
+    Point p = new Point(100, 200);
+    for (Buildable type : BuildableTypes.createAll()) {
+      Buildable b = type.constructNew(p);
+      assertNotSame(type, b);
+      assertEquals(type.getClass(), b.getClass());
+      assertEquals(b.getClass(), BuildableTypes.create(type.getClass().getName(), p).getClass());
+      if (b instanceof Tower) {
+        assertEquals(p, ((Tower) b).getCentre());
+      }
+    }
+  }
+}
@@ -0,0 +1,59 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package towers;
+
+/**
+ * The space a building takes up, as far as where it can be built goes. Buildings with equal
+ * footprints can be built in the same places, so where that is only needs to be worked out once.
+ */
+public final class Footprint {
+
+  // The class whose canBuildAt decides where the building can go
+  private final Class<? extends Buildable> kind;
+  private final int halfWidth;
+
+  public Footprint(Class<? extends Buildable> kind, int halfWidth) {
+    this.kind = kind;
+    this.halfWidth = halfWidth;
+  }
+
+  public int getHalfWidth() {
+    return halfWidth;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof Footprint)) {
+      return false;
+    }
+    Footprint f = (Footprint) obj;
+    return kind == f.kind && halfWidth == f.halfWidth;
+  }
+
+  @Override
+  public int hashCode() {
+    return kind.hashCode() * 31 + halfWidth;
+  }
+
+  @Override
+  public String toString() {
+    return kind.getSimpleName() + " " + halfWidth * 2 + "x" + halfWidth * 2;
+  }
+}
@@ -30,7 +30,6 @@ import java.awt.FontMetrics;
 import java.awt.Graphics2D;
 import java.awt.Point;
 import java.awt.Polygon;
-import java.awt.Rectangle;
 import java.awt.font.LineMetrics;
 import java.awt.geom.Rectangle2D;
 import java.awt.image.BufferedImage;
@@ -50,11 +49,9 @@ public class Ghost implements Drawable, Buildable {
   private static final int baseHits = 5;
   private int hitsLeft = baseHits;
   private final Point centre;
-  private final Rectangle bounds;
 
   public Ghost(Point p) {
     centre = p;
-    bounds = new Rectangle(p.x - halfWidth, p.y - halfWidth, width, width);
   }
 
   public void increaseHitsLeft(int n) {
@@ -89,6 +86,29 @@ public class Ghost implements Drawable, Buildable {
 
   @Override
   public void draw(Graphics2D g) {
+    draw(g, centre, hitsLeft);
+  }
+
+  /**
+   * Creates a drawable of this ghost as it is now, so it can be drawn on another thread while it
+   * carries on killing creeps.
+   */
+  public Drawable createDrawable() {
+    final int hits = hitsLeft;
+    return new Drawable() {
+      @Override
+      public void draw(Graphics2D g) {
+        Ghost.draw(g, centre, hits);
+      }
+
+      @Override
+      public ZCoordinate getZ() {
+        return ZCoordinate.Ghost;
+      }
+    };
+  }
+
+  private static void draw(Graphics2D g, Point centre, int hitsLeft) {
     Graphics2D g2D = (Graphics2D) g;
     g2D.drawImage(image, centre.x - halfWidth, centre.y - halfWidth, null);
     Font f = g2D.getFont();
@@ -125,14 +145,25 @@ public class Ghost implements Drawable, Buildable {
 
   @Override
   public boolean canBuild(List<Polygon> path) {
+    return canBuildAt(path, centre.x, centre.y);
+  }
+
+  @Override
+  public boolean canBuildAt(List<Polygon> path, int x, int y) {
+    // Ghosts must be completely on the path
     for (Polygon p : path) {
-      if (p.contains(bounds)) {
+      if (p.contains(x - halfWidth, y - halfWidth, width, width)) {
         return true;
       }
     }
     return false;
   }
 
+  @Override
+  public Footprint getFootprint() {
+    return new Footprint(Ghost.class, halfWidth);
+  }
+
   @Override
   public Buildable constructNew(Point p) {
     return new Ghost(p);
@@ -25,6 +25,8 @@ import java.awt.Point;
 import java.awt.Shape;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Random;
+import logic.SortedCreeps;
 
 public interface Tower extends Drawable, Buildable, Cloneable {
 
@@ -65,7 +67,7 @@ public interface Tower extends Drawable, Buildable, Cloneable {
    * @return The bullets shot by this tower after the last tick and up to this one null if the tower
    *     is to be removed
    */
-  public List<Bullet> tick(List<Creep> creeps, boolean levelInProgress);
+  public List<Bullet> tick(SortedCreeps creeps, boolean levelInProgress);
 
   public boolean clashesWith(Tower t);
 
@@ -102,6 +104,12 @@ public interface Tower extends Drawable, Buildable, Cloneable {
 
   public ExperienceReport getExperienceReport();
 
+  /**
+   * Sets this tower's source of randomness. This is done when the tower is added to the game, so
+   * it can come from the game's seed and the game can be replayed exactly.
+   */
+  public void setRandom(Random rand);
+
   public void setCreepComparator(Comparator<Creep> c);
 
   public Comparator<Creep> getCreepComparator();
@@ -28,6 +28,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import logic.SortedCreeps;
+import logic.TowerGrid;
 import towers.AbstractTower;
 import towers.Bullet;
 import towers.DamageNotifier;
@@ -44,10 +46,8 @@ public class AidTower extends AbstractTower {
   // Give each AidTower a unique ID
   private static int nextID = 0;
   private final int id = nextID++;
-  // This set keeps references to towers that are sold keeping them alive
-  // I don't think it's much of a memory issue though.
   private final Set<Tower> aidingTowers = new HashSet<Tower>();
-  private List<Tower> towers;
+  private TowerGrid towers;
   private final DamageNotifier damageNotifier = new AidDamageNotifier(this, 10);
   private boolean isSold = false;
 
@@ -74,29 +74,36 @@ public class AidTower extends AbstractTower {
   }
 
   @Override
-  public synchronized List<Bullet> tick(List<Creep> creeps, boolean levelInProgress) {
-    if (!isSold) {
-      synchronized (towers) {
-        for (Tower t : towers) {
-          if (!(t instanceof AidTower) && !aidingTowers.contains(t)) {
-            if (super.getCentre().distance(t.getCentre()) < getRange()) {
-              // Synchronized as aidAll() iterates over aidingTowers
-              synchronized (this) {
-                aidingTowers.add(t);
-              }
-              aid(t);
-              t.addDamageNotifier(damageNotifier);
-            }
-          }
+  public List<Bullet> tick(SortedCreeps creeps, boolean levelInProgress) {
+    // The towers it aids are found when it or they are added, or its range is upgraded
+    return Collections.emptyList();
+  }
+
+  /** Sets the towers in the game once this has been added to it, and aids those in range. */
+  public void setTowers(TowerGrid towers) {
+    assert this.towers == null : "Towers should not be set again";
+    this.towers = towers;
+    aidTowersInRange();
+  }
+
+  /** Aids the tower if it's in range, which should be called when a tower is added to the game. */
+  public void aidIfInRange(Tower t) {
+    if (!isSold && !(t instanceof AidTower) && !aidingTowers.contains(t)) {
+      if (super.getCentre().distance(t.getCentre()) < getRange()) {
+        // Synchronized as this is done when towers are added in a tick, while aidAll() can be
+        // iterating over aidingTowers for an upgrade from the GUI
+        synchronized (this) {
+          aidingTowers.add(t);
         }
+        aid(t);
+        t.addDamageNotifier(damageNotifier);
       }
     }
-    return Collections.emptyList();
   }
 
-  public void setTowers(List<Tower> towers) {
-    assert this.towers == null : "List of towers is should not be set again";
-    this.towers = towers;
+  /** Stops keeping the tower, which should be called when it's removed from the game. */
+  public synchronized void stopAiding(Tower t) {
+    aidingTowers.remove(t);
   }
 
   @Override
@@ -155,7 +162,7 @@ public class AidTower extends AbstractTower {
   protected void upgradeSpecial() {
     super.upgradeRange();
     // Aid any towers that are now in range
-    aidAll();
+    aidTowersInRange();
   }
 
   private static Map<Attribute, Integer> makeAidAmounts() {
@@ -173,13 +180,22 @@ public class AidTower extends AbstractTower {
     aidAll();
   }
 
-  // Synchronized as tick can add towers to aidingTowers
+  // Synchronized as towers are added to and removed from aidingTowers when they're added to or
+  // removed from the game in a tick, while upgrades come from the GUI
   private synchronized void aidAll() {
     for (Tower t : aidingTowers) {
       aid(t);
     }
   }
 
+  private void aidTowersInRange() {
+    if (towers != null) {
+      for (Tower t : towers.near(getCentre(), getRange())) {
+        aidIfInRange(t);
+      }
+    }
+  }
+
   private void aid(Tower t) {
     for (Attribute a : aidAmounts.keySet()) {
       t.aidAttribute(a, 1 + aidAmounts.get(a) / 100.0, id);
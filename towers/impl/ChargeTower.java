@@ -23,6 +23,7 @@ import creeps.Creep;
 import java.awt.Point;
 import java.util.List;
 import logic.Constants;
+import logic.SortedCreeps;
 import towers.AbstractTower;
 import towers.BasicBullet;
 import towers.Bullet;
@@ -40,7 +41,7 @@ public class ChargeTower extends AbstractTower {
   }
 
   @Override
-  public List<Bullet> tick(List<Creep> creeps, boolean levelInProgress) {
+  public List<Bullet> tick(SortedCreeps creeps, boolean levelInProgress) {
     List<Bullet> bullets = super.tick(creeps, levelInProgress);
     if (bullets.isEmpty()) {
       // Only charge during levels
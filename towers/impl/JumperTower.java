@@ -22,7 +22,7 @@ package towers.impl;
 import creeps.Creep;
 import java.awt.Point;
 import java.awt.geom.Point2D;
-import java.util.Arrays;
+import java.util.Collections;
 import logic.CreepGrid;
 import towers.AbstractTower;
 import towers.BasicBullet;
@@ -118,7 +118,8 @@ public class JumperTower extends AbstractTower {
     @Override
     protected double doTick(CreepGrid creeps) {
       // Remove the last hit creep so that it won't get hit again
-      double result = super.doTick(creeps.excluding(Arrays.asList(lastHit)));
+      double result =
+          super.doTick(lastHit == null ? creeps : creeps.excluding(Collections.singleton(lastHit)));
       if (result < 0) {
         // Bullet didn't hit anything
         return result;
@@ -58,6 +58,11 @@ public class ScatterTower extends AbstractTower {
     return fired;
   }
 
+  @Override
+  protected void aim(List<Creep> creeps) {
+    // The turret isn't turned, as it shoots at several creeps at once
+  }
+
   @Override
   protected void upgradeSpecial() {
     numShots++;
@@ -78,6 +78,12 @@ public abstract class SlowTower extends AbstractTower {
       public void specialOnHit(Point2D p, Creep c, CreepGrid creeps) {
         c.slow(slowFactor, (int) slowTicks, damageNotifier);
       }
+
+      @Override
+      public boolean canPrepareTick() {
+        // Only what happens on a hit is different
+        return true;
+      }
     };
   }
 
@@ -60,6 +60,12 @@ public class WeakenTower extends AbstractTower {
       protected void specialOnHit(Point2D p, Creep c, CreepGrid creeps) {
         c.setDamageMultiplier(damageNotifier, increaseDamageFactor, (int) extraDamageTicks);
       }
+
+      @Override
+      public boolean canPrepareTick() {
+        // Only what happens on a hit is different
+        return true;
+      }
     };
   }
 
@@ -61,7 +61,9 @@ public class ZapperTower extends AbstractTower {
   @Override
   protected Bullet makeBullet(
       Vector2D dir, int turretWidth, int range, double speed, double damage, Point p, Creep c) {
-    return new ZapperBullet(this, dir, turretWidth, range, speed, damage, p, numZaps);
+    // Give each bullet its own generator so the zaps don't depend on the order bullets are ticked
+    Random rand = new Random(getRandom().nextLong());
+    return new ZapperBullet(this, dir, turretWidth, range, speed, damage, p, numZaps, rand);
   }
 
   @Override
@@ -71,7 +73,6 @@ public class ZapperTower extends AbstractTower {
 
   private static class ZapperBullet extends BasicBullet {
 
-    private static final Random rand = new Random();
     private static final double zapRange = 40;
     private static final Color zapColour = new Color(20, 255, 50);
     private static final Stroke zapStroke = new BasicStroke(3);
@@ -80,6 +81,7 @@ public class ZapperTower extends AbstractTower {
     private int numZapsLeft;
     private Line2D zap;
     private final int offScreenFudgeDistance;
+    private final Random rand;
 
     public ZapperBullet(
         Tower shotBy,
@@ -89,9 +91,11 @@ public class ZapperTower extends AbstractTower {
         double speed,
         double damage,
         Point p,
-        int numZaps) {
+        int numZaps,
+        Random rand) {
       super(shotBy, dir, turretWidth, range, speed, damage, p);
       numZapsLeft = numZaps;
+      this.rand = rand;
       // Bullet shouldn't be removed if it can still zap creeps
       offScreenFudgeDistance = super.getOffScreenFudgeDistance() + (int) zapRange;
     }
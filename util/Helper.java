@@ -31,39 +31,62 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Stream;
 
 public class Helper {
 
+  /** A test of a point, taking its coordinates so no Point2D is needed. */
+  public interface PointTest {
+    boolean test(double x, double y);
+  }
+
   private static final Map<Integer, DecimalFormat> formats = new HashMap<Integer, DecimalFormat>();
 
   private static final long scientificFormatThreshold = 10_000_000_000L;
   private static final DecimalFormat scientificFormat = new DecimalFormat("0.000E0");
 
-  public static Iterable<Point2D> getPointsOnLine(Line2D line) {
-    Point2D p1 = line.getP1();
-    Point2D p2 = line.getP2();
+  /**
+   * Walks along the line in steps of at most one pixel in either the x or y direction, from the
+   * first point to the second, and returns the first point the test is true for.
+   *
+   * <p>Nothing is allocated unless a point is found, as this is done for every bullet that is near
+   * a creep.
+   *
+   * @return the first point the test is true for, or null if it's not true for any of them
+   */
+  public static Point2D findPointOnLine(Line2D line, PointTest test) {
+    double x = line.getX1();
+    double y = line.getY1();
     // The maximum length in either the x or y directions to divide the line
     // into points a maximum of one pixel apart in either the x or y directions
-    double dx = p2.getX() - p1.getX();
-    double dy = p2.getY() - p1.getY();
+    double dx = line.getX2() - x;
+    double dy = line.getY2() - y;
     double absDx = Math.abs(dx);
     double absDy = Math.abs(dy);
 
-    Vector2D step;
+    double stepX;
+    double stepY;
     int steps;
     if (absDx > absDy) {
-      step = new Vector2D(dx > 0 ? 1 : -1, dy / absDx);
+      stepX = dx > 0 ? 1 : -1;
+      stepY = dy / absDx;
       steps = (int) absDx;
     } else {
-      step = new Vector2D(dx / absDy, dy > 0 ? 1 : -1);
+      stepX = dx / absDy;
+      stepY = dy > 0 ? 1 : -1;
       steps = (int) absDy;
     }
-    Stream<Point2D> stream =
-        Stream.concat(
-            Stream.iterate((Point2D) p1.clone(), p -> Vector2D.add(p, step)).limit(steps + 1),
-            Stream.of((Point2D) p2.clone()));
-    return stream::iterator;
+    for (int i = 0; i <= steps; i++) {
+      if (test.test(x, y)) {
+        return new Point2D.Double(x, y);
+      }
+      x += stepX;
+      y += stepY;
+    }
+    // Always finish on the end of the line, as the steps will usually stop short of it
+    if (test.test(line.getX2(), line.getY2())) {
+      return line.getP2();
+    }
+    return null;
   }
 
   public static boolean containedInAShape(Point2D p, List<Shape> shapes) {
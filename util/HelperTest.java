@@ -0,0 +1,62 @@
+/*
+ *  This file is part of Pac Defence.
+ *
+ *  Pac Defence is free software: you can redistribute it and/or modify
+ *  it under the terms of the GNU General Public License as published by
+ *  the Free Software Foundation, either version 3 of the License, or
+ *  (at your option) any later version.
+ *
+ *  Pac Defence is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ *  GNU General Public License for more details.
+ *
+ *  You should have received a copy of the GNU General Public License
+ *  along with Pac Defence.  If not, see <http://www.gnu.org/licenses/>.
+ *
+ *  (C) Liam Byrne, 2008 - 2026.
+ */
+
+package util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.geom.Line2D;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class HelperTest {
+
+  @Test
+  public void testFindPointOnLineVisitsEveryPixel() {
+    final List<Point2D> points = new ArrayList<Point2D>();
+    Point2D found =
+        Helper.findPointOnLine(
+            new Line2D.Double(1, 2, 11.5, -3),
+            (x, y) -> {
+              points.add(new Point2D.Double(x, y));
+              return false;
+            });
+    assertNull(found);
+    assertEquals(new Point2D.Double(1, 2), points.get(0));
+    assertEquals(new Point2D.Double(11.5, -3), points.get(points.size() - 1));
+    for (int i = 1; i < points.size(); i++) {
+      // No more than one pixel apart in either direction
+      assertTrue(Math.abs(points.get(i).getX() - points.get(i - 1).getX()) <= 1);
+      assertTrue(Math.abs(points.get(i).getY() - points.get(i - 1).getY()) <= 1);
+    }
+  }
+
+  @Test
+  public void testFindPointOnLineReturnsFirstPoint() {
+    Point2D found = Helper.findPointOnLine(new Line2D.Double(0, 0, 0, 20), (x, y) -> y >= 5);
+    assertEquals(new Point2D.Double(0, 5), found);
+    // A zero length line is still tested
+    found = Helper.findPointOnLine(new Line2D.Double(3, 4, 3, 4), (x, y) -> true);
+    assertEquals(new Point2D.Double(3, 4), found);
+  }
+}